@@ -0,0 +1,199 @@
+package com.shopscript.backend.config;
+
+import com.shopscript.backend.entity.SalesRollup;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Flyway migration V2: brings the schema of V1 (what the code created before
+ * migrations) up to what the entities expect. Databases that predate Flyway
+ * may already have any part of it from ddl-auto=update, so every step checks
+ * first and can run again safely:
+ * - the rating summary, version and last_modified columns of products; the
+ *   ratings are filled in from approved reviews when the columns are added;
+ * - reviews.rejected and the review listing indexes;
+ * - sales_rollups, filled in from existing orders when it is created;
+ * - the order_seq and order_item_seq tables behind the pooled order ids,
+ *   moved past the largest existing id so new orders cannot collide.
+ *
+ * Java rather than SQL because MySQL has no "add column if not exists".
+ * Spring Boot hands JavaMigration beans to Flyway.
+ */
+@Component
+public class BaselineSchemaUpgrade implements JavaMigration {
+    private static final Logger logger = LoggerFactory.getLogger(BaselineSchemaUpgrade.class);
+
+    // allocationSize of the order_seq and order_item_seq generators on Order and OrderItem
+    static final int SEQUENCE_ALLOCATION = 50;
+
+    private static final String COUNTER = "integer not null default 0";
+    private static final String[] RATING_COLUMNS = {
+            "rating_count", "rating_sum", "rating_1", "rating_2", "rating_3", "rating_4", "rating_5" };
+
+    private static final String APPROVED_REVIEWS = "FROM reviews r WHERE r.product_id = p.id AND r.is_approved = TRUE";
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("2");
+    }
+
+    @Override
+    public String getDescription() {
+        return "upgrade baseline schema";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            boolean ratingsAdded = false;
+            for (String column : RATING_COLUMNS) {
+                ratingsAdded |= addColumn(connection, statement, "products", column, COUNTER);
+            }
+            addColumn(connection, statement, "products", "version", "bigint not null default 0");
+            addColumn(connection, statement, "products", "last_modified", "datetime(6)");
+            if (ratingsAdded) {
+                int products = statement.executeUpdate("UPDATE products p SET "
+                        + "rating_count = (SELECT COUNT(*) " + APPROVED_REVIEWS + "), "
+                        + "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) " + APPROVED_REVIEWS + "), "
+                        + "rating_1 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 1), "
+                        + "rating_2 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 2), "
+                        + "rating_3 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 3), "
+                        + "rating_4 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 4), "
+                        + "rating_5 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 5)");
+                logger.info("Filled in rating summaries of {} products", products);
+            }
+
+            addColumn(connection, statement, "reviews", "rejected", "boolean not null default false");
+            addIndex(connection, statement, "reviews", "idx_reviews_product_approved_id", "product_id, is_approved, id");
+            addIndex(connection, statement, "reviews", "idx_reviews_approved_rejected_id", "is_approved, rejected, id");
+
+            if (!hasTable(connection, "sales_rollups")) {
+                statement.execute("create table sales_rollups ("
+                        + "revenue decimal(19,2) not null, "
+                        + "sales_day date not null, "
+                        + "order_count bigint not null, "
+                        + "units bigint not null, "
+                        + "status varchar(20) not null, "
+                        + "category varchar(255) not null, "
+                        + "primary key (sales_day, status, category)"
+                        + ") engine=InnoDB");
+                backfillSalesRollups(statement);
+            }
+
+            seedSequence(connection, statement, "order_seq", "orders");
+            seedSequence(connection, statement, "order_item_seq", "order_items");
+        }
+    }
+
+    // Same figures as SalesRollupService.rebuild(): one "_all" row per day and status, one per category
+    private static void backfillSalesRollups(Statement statement) throws SQLException {
+        int rows = statement.executeUpdate(
+                "INSERT INTO sales_rollups (sales_day, category, status, revenue, order_count, units) "
+                + "SELECT x.sales_day, '" + SalesRollup.ALL_CATEGORIES + "', x.status, SUM(x.total_amount), "
+                + "COUNT(*), SUM(x.units) "
+                + "FROM (SELECT CAST(o.created_at AS DATE) AS sales_day, o.status, o.total_amount, "
+                + "(SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id) AS units "
+                + "FROM orders o WHERE o.created_at IS NOT NULL AND o.status IS NOT NULL) x "
+                + "GROUP BY x.sales_day, x.status");
+        rows += statement.executeUpdate(
+                "INSERT INTO sales_rollups (sales_day, category, status, revenue, order_count, units) "
+                + "SELECT CAST(o.created_at AS DATE), COALESCE(p.category, '" + SalesRollup.NO_CATEGORY + "'), "
+                + "o.status, COALESCE(SUM(i.price * i.quantity), 0), COUNT(DISTINCT o.id), "
+                + "COALESCE(SUM(i.quantity), 0) "
+                + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+                + "LEFT JOIN products p ON p.id = i.product_id "
+                + "WHERE o.created_at IS NOT NULL AND o.status IS NOT NULL "
+                + "GROUP BY CAST(o.created_at AS DATE), COALESCE(p.category, '" + SalesRollup.NO_CATEGORY + "'), "
+                + "o.status");
+        logger.info("Filled in {} sales rollup rows from existing orders", rows);
+    }
+
+    /**
+     * Creates the single-row table Hibernate uses as a sequence on MySQL, and
+     * makes sure its next value is past the ids already taken. The pooled
+     * optimizer hands out the block ending at the value it reads (next_val - 49
+     * to next_val), so the row must be at least MAX(id) + allocation; MAX(id) + 1
+     * would reissue existing ids. The initial value 1 is special-cased by
+     * Hibernate and is kept for an empty table.
+     */
+    private static void seedSequence(Connection connection, Statement statement, String sequence, String table)
+            throws SQLException {
+        if (!hasTable(connection, sequence)) {
+            statement.execute("create table " + sequence + " (next_val bigint) engine=InnoDB");
+        }
+        long maxId = queryLong(statement, "SELECT COALESCE(MAX(id), 0) FROM " + table);
+        Long current = queryLong(statement, "SELECT COUNT(*) FROM " + sequence) == 0
+                ? null
+                : queryLong(statement, "SELECT MAX(next_val) FROM " + sequence);
+        long wanted = maxId == 0 ? 1 : maxId + SEQUENCE_ALLOCATION;
+        if (current == null) {
+            statement.executeUpdate("INSERT INTO " + sequence + " (next_val) VALUES (" + wanted + ")");
+        } else if (current < wanted) {
+            statement.executeUpdate("UPDATE " + sequence + " SET next_val = " + wanted);
+        } else {
+            return;
+        }
+        logger.info("Set {} to {} (largest {} id is {})", sequence, wanted, table, maxId);
+    }
+
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static boolean addColumn(Connection connection, Statement statement, String table, String column,
+            String definition) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+            if (rs.next()) {
+                return false;
+            }
+        }
+        statement.execute("alter table " + table + " add column " + column + " " + definition);
+        return true;
+    }
+
+    private static void addIndex(Connection connection, Statement statement, String table, String index,
+            String columns) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false,
+                true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        statement.execute("create index " + index + " on " + table + " (" + columns + ")");
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(connection.getCatalog(), connection.getSchema(), table,
+                new String[] { "TABLE" })) {
+            return rs.next();
+        }
+    }
+}
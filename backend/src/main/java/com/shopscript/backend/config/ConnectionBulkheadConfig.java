@@ -0,0 +1,41 @@
+package com.shopscript.backend.config;
+
+import com.shopscript.backend.datasource.ConnectionBulkhead;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Puts a {@link ConnectionBulkhead} in front of every connection pool (the
+ * primary and, when configured, the read replica), sized to the pool unless
+ * {@code app.datasource.bulkhead.max-concurrent} says otherwise.
+ */
+@Configuration
+public class ConnectionBulkheadConfig {
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionBulkheads(Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource pool)) {
+                    return bean;
+                }
+                int maxConcurrent = environment.getProperty("app.datasource.bulkhead.max-concurrent", Integer.class, 0);
+                long maxWaitMs = environment.getProperty("app.datasource.bulkhead.max-wait-ms", Long.class, 1000L);
+                if (maxConcurrent <= 0) {
+                    // Unset until the pool starts and applies its default
+                    maxConcurrent = pool.getMaximumPoolSize() > 0 ? pool.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+                }
+                return new ConnectionBulkhead(pool, pool.getPoolName(), maxConcurrent, maxWaitMs,
+                        meterRegistry.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.shopscript.backend.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flyway migration V3.1: moves sizes out of the old {@code products.sizes}
+ * (comma separated) and {@code products.size_prices} (JSON) columns into the
+ * {@code product_variants} rows V3 created, and clears the old columns.
+ * Migrated variants share the product's stock, as sizes did before. It runs
+ * before V5, which resolves existing order lines to these variants.
+ *
+ * A database created by ddl-auto=update after the columns left the entity
+ * may not have them; each column is looked up and a missing one is treated
+ * as empty. Any other database error fails the migration.
+ */
+@Component
+public class ProductVariantMigration implements JavaMigration {
+    private static final Logger logger = LoggerFactory.getLogger(ProductVariantMigration.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("3.1");
+    }
+
+    @Override
+    public String getDescription() {
+        return "move product sizes to variants";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        boolean hasSizes = hasColumn(connection, "products", "sizes");
+        boolean hasSizePrices = hasColumn(connection, "products", "size_prices");
+        if (!hasSizes && !hasSizePrices) {
+            return;
+        }
+        String sizesColumn = hasSizes ? "sizes" : "NULL";
+        String pricesColumn = hasSizePrices ? "size_prices" : "NULL";
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT id, " + sizesColumn + " AS sizes, "
+                + pricesColumn + " AS size_prices FROM products WHERE " + sizesColumn + " IS NOT NULL OR "
+                + pricesColumn + " IS NOT NULL");
+        for (Map<String, Object> row : rows) {
+            long id = ((Number) row.get("id")).longValue();
+            migrate(jdbcTemplate, id, (String) row.get("sizes"), (String) row.get("size_prices"));
+            // Bumping the version invalidates ETags clients hold for the product
+            jdbcTemplate.update("UPDATE products SET " + (hasSizes ? "sizes = NULL, " : "")
+                    + (hasSizePrices ? "size_prices = NULL, " : "")
+                    + "version = version + 1, last_modified = CURRENT_TIMESTAMP WHERE id = ?", id);
+        }
+        if (!rows.isEmpty()) {
+            logger.info("Migrated sizes of {} products to product_variants", rows.size());
+        }
+    }
+
+    private static void migrate(JdbcTemplate jdbcTemplate, long productId, String sizes, String sizePrices) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_variants WHERE product_id = ?", Integer.class, productId);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        JsonNode prices = parsePrices(productId, sizePrices);
+        Set<String> seen = new LinkedHashSet<>();
+        for (String part : sizes != null ? sizes.split(",") : new String[0]) {
+            String size = part.trim();
+            if (size.isEmpty() || !seen.add(size)) {
+                continue;
+            }
+            jdbcTemplate.update("INSERT INTO product_variants (product_id, size, price, stock, sort_order) "
+                    + "VALUES (?, ?, ?, NULL, ?)", productId, size, price(prices, size), seen.size() - 1);
+        }
+    }
+
+    private static JsonNode parsePrices(long productId, String sizePrices) {
+        if (sizePrices == null || sizePrices.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(sizePrices);
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable size prices of product {}: {}", productId, sizePrices);
+            return null;
+        }
+    }
+
+    // A missing, zero or unreadable price means the size sells at the product's price
+    private static BigDecimal price(JsonNode prices, String size) {
+        JsonNode value = prices != null ? prices.get(size) : null;
+        if (value == null || value.isNull() || value.asText().isBlank()) {
+            return null;
+        }
+        try {
+            BigDecimal price = new BigDecimal(value.asText().trim());
+            return price.signum() > 0 ? price : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), connection.getSchema(),
+                table, column)) {
+            return rs.next();
+        }
+    }
+}
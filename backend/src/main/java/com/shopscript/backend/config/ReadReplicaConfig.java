@@ -0,0 +1,91 @@
+package com.shopscript.backend.config;
+
+import com.shopscript.backend.datasource.ReadReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import jakarta.servlet.Filter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a read replica pool when {@code app.datasource.replica.jdbc-url} is
+ * set: read-only transactions then run on the replica, everything else on
+ * the primary configured by {@code spring.datasource.*}. Without a replica
+ * URL Spring Boot's single pool is used as before.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replica.jdbc-url:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // jdbc-url, username, password, maximum-pool-size and other Hikari settings, sized apart from the primary
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public ReadReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.max-staleness-ms:5000}") long maxStalenessMs,
+            @Value("${app.datasource.replica.lag-query:}") String lagQuery) {
+        return new ReadReplicaRoutingDataSource(primary, replica, maxStalenessMs, lagQuery, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicaChecker(ReadReplicaRoutingDataSource routingDataSource,
+            @Value("${app.datasource.replica.check-interval-ms:2000}") long intervalMs) {
+        ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(routingDataSource::checkReplica, 0, intervalMs, TimeUnit.MILLISECONDS);
+        return checker;
+    }
+
+    /** Ends each request's read-your-writes window, so a pooled request thread does not carry it into the next. */
+    @Bean
+    public FilterRegistrationBean<Filter> replicaRequestScope() {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ReadReplicaRoutingDataSource.endRequest();
+            }
+        });
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /** What JPA, JdbcTemplate and Flyway use; connects lazily so routing can see the read-only flag. */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
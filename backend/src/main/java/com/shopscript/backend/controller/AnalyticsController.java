@@ -0,0 +1,38 @@
+package com.shopscript.backend.controller;
+
+import com.shopscript.backend.dto.SalesReport;
+import com.shopscript.backend.dto.SalesRollupCheck;
+import com.shopscript.backend.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AnalyticsController {
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    // Defaults to the last 30 days, e.g. /sales?from=2024-01-01&to=2024-01-31
+    @GetMapping("/sales")
+    public SalesReport getSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return salesRollupService.report(start, end);
+    }
+
+    @PostMapping("/sales/rebuild")
+    public Map<String, Integer> rebuildSales() {
+        return Map.of("rows", salesRollupService.rebuild());
+    }
+
+    @GetMapping("/sales/verify")
+    public SalesRollupCheck verifySales() {
+        return salesRollupService.verify();
+    }
+}
@@ -1,72 +1,70 @@
 package com.shopscript.backend.controller;
 
+import com.shopscript.backend.storage.BlobStore;
+import com.shopscript.backend.storage.BlobTooLargeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/uploads")
 @CrossOrigin(origins = "http://localhost:3000")
 public class FileUploadController {
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "webp", "avif");
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private BlobStore blobStore;
 
-    public FileUploadController() {
-        this.fileStorageLocation = Paths.get("src/main/resources/static/uploads").toAbsolutePath().normalize();
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
-    }
+    // Base for returned image URLs, e.g. https://cdn.example.com/uploads; blank means this server's /uploads
+    @Value("${app.uploads.public-url:}")
+    private String publicUrl;
 
     @PostMapping("/image")
     public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
-        try {
-            // Normalize file name
-            String fileNameRaw = file.getOriginalFilename();
-            if (fileNameRaw == null) {
-                throw new IOException("File name is null");
-            }
-            String originalFileName = StringUtils.cleanPath(fileNameRaw);
-            String fileExtension = "";
-            int i = originalFileName.lastIndexOf('.');
-            if (i > 0) {
-                fileExtension = originalFileName.substring(i);
-            }
-
-            // Generate unique file name
-            String fileName = UUID.randomUUID().toString() + fileExtension;
-
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        String fileNameRaw = file.getOriginalFilename();
+        String extension = fileNameRaw == null ? null : StringUtils.getFilenameExtension(StringUtils.cleanPath(fileNameRaw));
+        if (extension == null || !IMAGE_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT))) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Only " + IMAGE_EXTENSIONS + " images can be uploaded"));
+        }
 
-            // Construct the file download URI
-            // Note: In production, this should be a full URL. For local dev, we serve from
-            // static resources.
-            // Spring Boot serves src/main/resources/static at root /. So
-            // static/uploads/xyz.jpg -> /uploads/xyz.jpg
-            String fileDownloadUri = "http://localhost:8080/uploads/" + fileName;
+        try (InputStream content = file.getInputStream()) {
+            // Named by content hash, so uploading the same image twice returns the same URL
+            String name = blobStore.put(content, extension);
 
             Map<String, String> response = new HashMap<>();
-            response.put("imageUrl", fileDownloadUri);
-
+            response.put("imageUrl", urlOf(name));
             return ResponseEntity.ok(response);
+        } catch (BlobTooLargeException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", ex.getMessage()));
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("error", "Too many uploads in progress. Please try again shortly."));
         } catch (IOException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Could not upload file: " + ex.getMessage()));
         }
     }
+
+    private String urlOf(String name) {
+        if (publicUrl == null || publicUrl.isBlank()) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath().path("/uploads/").path(name).toUriString();
+        }
+        return publicUrl.replaceAll("/+$", "") + "/" + name;
+    }
 }
@@ -1,9 +1,19 @@
 package com.shopscript.backend.controller;
 
+import com.shopscript.backend.dto.OrderPage;
+import com.shopscript.backend.dto.OrderQuery;
 import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.service.OrderExportService;
 import com.shopscript.backend.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,6 +23,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
     @PostMapping("/user/{userId}")
     public Order createOrder(@PathVariable Long userId, @RequestBody Order order) {
         return orderService.createOrder(userId, order);
@@ -28,6 +41,35 @@ public class OrderController {
         return orderService.getUserOrders(userId);
     }
 
+    // Cursor-paginated summaries, e.g. /page?status=PENDING&from=2024-01-01&to=2024-01-31&limit=20
+    @GetMapping("/page")
+    public OrderPage getOrderPage(OrderQuery query) {
+        return orderService.findOrders(null, query);
+    }
+
+    // Users may only page through their own orders
+    @GetMapping("/user/{userId}/page")
+    @PreAuthorize("hasRole('ADMIN') or #userId == authentication.principal.id")
+    public OrderPage getUserOrderPage(@PathVariable Long userId, OrderQuery query) {
+        return orderService.findOrders(userId, query);
+    }
+
+    // Streams every matching order, e.g. /export?format=csv&status=DELIVERED&from=2024-01-01
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+            OrderQuery query) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        String filename = "orders-" + LocalDate.now() + (csv ? ".csv" : ".ndjson");
+        StreamingResponseBody body = csv
+                ? out -> orderExportService.writeCsv(query, out)
+                : out -> orderExportService.writeNdjson(query, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @PutMapping("/{id}/status")
     public Order updateStatus(@PathVariable Long id, @RequestParam Order.Status status) {
         return orderService.updateOrderStatus(id, status);
@@ -1,10 +1,27 @@
 package com.shopscript.backend.controller;
 
+import com.shopscript.backend.datasource.ReadReplicaRoutingDataSource;
+import com.shopscript.backend.dto.ProductPage;
+import com.shopscript.backend.dto.ProductQuery;
+import com.shopscript.backend.dto.ProductSearchPage;
 import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.service.CatalogResponseCache;
+import com.shopscript.backend.service.CatalogSnapshot;
 import com.shopscript.backend.service.ProductService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
@@ -13,33 +30,149 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    // The full listing is encoded once per catalog version; each request just picks the
+    // identity or gzip bytes. Each encoding has its own tag, as their bytes differ
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<byte[]> getAllProducts(WebRequest request, HttpServletResponse response,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogSnapshot snapshot = productService.catalogSnapshot();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? snapshot.getEtag().replaceFirst("\"$", "-gz\"") : snapshot.getEtag();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (request.checkNotModified(etag, millis(snapshot.getLastModified()))) {
+            return null;
+        }
+        CatalogResponseCache.Encoded encoded = productService.encodedProducts(snapshot);
+        ResponseEntity.BodyBuilder builder = validated(ResponseEntity.ok().eTag(etag), snapshot.getLastModified())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(encoded.getGzip().length)
+                    .body(encoded.getGzip());
+        }
+        return builder.contentLength(encoded.getJson().length).body(encoded.getJson());
+    }
+
+    // Listings are validated against the catalog version they were computed from, which
+    // is checked before any query runs, so an unchanged catalog answers 304 for free. The
+    // snapshot is read on the primary, so the page is too: a lagging replica would otherwise
+    // put an older page under the newest tag, and caches would keep revalidating it as fresh
+    @GetMapping("/catalog")
+    public ResponseEntity<ProductPage> getCatalogPage(ProductQuery query, WebRequest request) {
+        return conditional(request, productService.catalogSnapshot(),
+                () -> ReadReplicaRoutingDataSource.onPrimary(() -> productService.findProducts(query)));
     }
 
     @GetMapping("/{id}")
-    public Product getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
+        Product product = productService.getProductById(id);
+        String etag = etag(product);
+        if (request.checkNotModified(etag, millis(product.getLastModified()))) {
+            return null;
+        }
+        return validated(ResponseEntity.ok().eTag(etag), product.getLastModified()).body(product);
     }
 
     @PostMapping
-    public Product createProduct(@RequestBody Product product) {
-        return productService.createProduct(product);
+    public ResponseEntity<Product> createProduct(@RequestBody Product product) {
+        Product saved = productService.createProduct(product);
+        return ResponseEntity.ok().eTag(etag(saved)).body(saved);
     }
 
     @PutMapping("/{id}")
-    public Product updateProduct(@PathVariable Long id, @RequestBody Product product) {
-        return productService.updateProduct(id, product);
+    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product saved = productService.updateProduct(id, product, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(etag(saved)).body(saved);
     }
 
     @DeleteMapping("/{id}")
-    public void deleteProduct(@PathVariable Long id) {
-        productService.deleteProduct(id);
+    public void deleteProduct(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productService.deleteProduct(id, expectedVersion(id, ifMatch));
     }
 
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String query) {
-        return productService.searchProducts(query);
+    public ResponseEntity<ProductSearchPage> searchProducts(@RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        return conditional(request, productService.catalogSnapshot(),
+                () -> productService.searchProducts(query, Math.max(page, 0), Math.min(Math.max(size, 1), 100)));
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "8") int limit) {
+        return productService.suggest(prefix, Math.min(Math.max(limit, 1), 20));
+    }
+
+    private static <T> ResponseEntity<T> conditional(WebRequest request, CatalogSnapshot snapshot, Supplier<T> body) {
+        if (request.checkNotModified(snapshot.getEtag(), millis(snapshot.getLastModified()))) {
+            return null;
+        }
+        return validated(ResponseEntity.ok().eTag(snapshot.getEtag()), snapshot.getLastModified()).body(body.get());
+    }
+
+    // Caches may store responses but must revalidate them, as stock changes with every order
+    private static ResponseEntity.BodyBuilder validated(ResponseEntity.BodyBuilder builder, LocalDateTime modified) {
+        builder.cacheControl(CacheControl.noCache());
+        if (modified != null) {
+            builder.lastModified(millis(modified));
+        }
+        return builder;
+    }
+
+    /** True unless the client did not offer gzip or refused it with q=0. */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String etag(Product product) {
+        return "\"" + product.getId() + "-" + product.getVersion() + "\"";
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Version named by an If-Match header, or null for an unconditional write.
+     * Only a single strong tag for this product (or "*") can ever match.
+     */
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // fall through: a tag we never issued cannot match
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not name a version of this product");
     }
 }
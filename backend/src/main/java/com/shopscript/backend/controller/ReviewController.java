@@ -1,10 +1,13 @@
 package com.shopscript.backend.controller;
 
+import com.shopscript.backend.dto.ReviewModerationRequest;
+import com.shopscript.backend.dto.ReviewPage;
 import com.shopscript.backend.entity.Review;
 import com.shopscript.backend.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -23,6 +26,18 @@ public class ReviewController {
         return reviewService.getProductReviews(productId);
     }
 
+    @GetMapping("/product/{productId}/page")
+    public ReviewPage getProductReviewPage(@PathVariable Long productId, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return reviewService.getProductReviewPage(productId, cursor, limit);
+    }
+
+    @GetMapping("/pending/page")
+    public ReviewPage getPendingReviewPage(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return reviewService.getPendingReviewPage(cursor, limit);
+    }
+
     @GetMapping("/pending")
     public List<Review> getPendingReviews() {
         return reviewService.getPendingReviews();
@@ -32,4 +47,16 @@ public class ReviewController {
     public Review approveReview(@PathVariable Long id, @RequestParam boolean approved) {
         return reviewService.approveReview(id, approved);
     }
+
+    // Bulk moderation: {"ids": [1, 2, 3], "approved": false}
+    @PutMapping("/approval")
+    public Map<String, Integer> moderateReviews(@RequestBody ReviewModerationRequest request) {
+        return Map.of("updated", reviewService.moderate(request));
+    }
+
+    // Backfill for product rating summaries (e.g. after importing reviews)
+    @PostMapping("/ratings/rebuild")
+    public Map<String, Integer> rebuildRatings() {
+        return Map.of("products", reviewService.rebuildRatingSummaries());
+    }
 }
@@ -1,12 +1,12 @@
 package com.shopscript.backend.controller;
 
-import com.shopscript.backend.entity.SiteSetting;
-import com.shopscript.backend.repository.SiteSettingRepository;
+import com.shopscript.backend.service.SiteSettingsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import jakarta.annotation.PostConstruct;
+import org.springframework.web.context.request.WebRequest;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/settings")
@@ -14,40 +14,23 @@ import java.util.stream.Collectors;
 public class SiteSettingController {
 
     @Autowired
-    private SiteSettingRepository siteSettingRepository;
-
-    @PostConstruct
-    public void init() {
-        if (siteSettingRepository.count() == 0) {
-            saveSetting("hero_title", "Find Your Next Obsession");
-            saveSetting("hero_subtitle",
-                    "Shop the latest trends in fashion, electronics, and home essentials. unbeatable prices and premium quality.");
-            saveSetting("hero_image",
-                    "https://images.unsplash.com/photo-1472851294608-415522f97817?auto=format&fit=crop&q=80&w=1920");
-        }
-    }
-
-    private void saveSetting(String key, String value) {
-        SiteSetting setting = new SiteSetting();
-        setting.setSettingKey(key);
-        setting.setSettingValue(value);
-        siteSettingRepository.save(setting);
-    }
+    private SiteSettingsService siteSettingsService;
 
+    // Clients may cache but must revalidate; an unchanged snapshot answers 304 with no body
     @GetMapping
-    public Map<String, String> getAllSettings() {
-        return siteSettingRepository.findAll().stream()
-                .collect(Collectors.toMap(SiteSetting::getSettingKey, SiteSetting::getSettingValue));
+    public ResponseEntity<Map<String, String>> getAllSettings(WebRequest request) {
+        SiteSettingsService.Snapshot snapshot = siteSettingsService.snapshot();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.getValues());
     }
 
     @PostMapping
     public void updateSettings(@RequestBody Map<String, String> settings) {
-        settings.forEach((key, value) -> {
-            SiteSetting setting = siteSettingRepository.findBySettingKey(key)
-                    .orElse(new SiteSetting());
-            setting.setSettingKey(key);
-            setting.setSettingValue(value);
-            siteSettingRepository.save(setting);
-        });
+        siteSettingsService.update(settings);
     }
 }
@@ -0,0 +1,232 @@
+package com.shopscript.backend.controller;
+
+import com.shopscript.backend.images.ImageResizer;
+import com.shopscript.backend.storage.BlobStore;
+import com.shopscript.backend.storage.MappedFileCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves uploaded files from {@code /uploads/{name}}. With {@code ?w=} an
+ * image is served downscaled to that width, which must be one of the
+ * configured variant widths.
+ *
+ * Content-hash names never change meaning, so they are cached by clients
+ * and proxies for a year as immutable, and a revalidation is answered from
+ * the name alone. Other names get a day and validators from the file.
+ * A single byte range is honoured (with If-Range); multi-range requests get
+ * the whole file. Small hot files are written from {@link MappedFileCache}
+ * without opening or reading them; everything else is handed to Tomcat's
+ * sendfile so the kernel copies it, or to FileChannel.transferTo where
+ * sendfile is not available.
+ */
+@RestController
+@RequestMapping("/uploads")
+public class UploadedFileController {
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl MUTABLE = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
+    // Tomcat request attributes for handing the body to the connector's sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long RESIZE_WAIT_SECONDS = 30;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ImageResizer imageResizer;
+
+    @Autowired
+    private MappedFileCache mappedFiles;
+
+    @GetMapping("/{name}")
+    public void getUpload(@PathVariable String name, @RequestParam(value = "w", required = false) Integer width,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (width != null && !imageResizer.isAllowedWidth(width)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Width must be one of " + imageResizer.getWidths());
+        }
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        boolean immutable = blobStore.isContentAddressed(name);
+        String suffix = width != null ? "-w" + width : "";
+
+        // A hash name is its own validator: no need to touch the disk to answer a revalidation
+        if (immutable && webRequest.checkNotModified("\"" + name + suffix + "\"")) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+            return;
+        }
+
+        Path original = blobStore.find(name).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        long lastModified = Files.getLastModifiedTime(original).toMillis();
+        String etag = immutable
+                ? "\"" + name + suffix + "\""
+                : "\"" + Long.toHexString(Files.size(original)) + "-" + Long.toHexString(lastModified) + suffix + "\"";
+        // A variant only changes when its original does, so both are validated by the original
+        if (!immutable && webRequest.checkNotModified(etag, lastModified)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, MUTABLE.getHeaderValue());
+            return;
+        }
+
+        Path file = width == null ? original : variant(original, width, response);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (immutable ? IMMUTABLE : MUTABLE).getHeaderValue());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        send(file, etag, lastModified, request, response);
+    }
+
+    private Path variant(Path original, int width, HttpServletResponse response) {
+        try {
+            // Only the first request for a variant waits here; later ones find it in the disk cache
+            return imageResizer.variant(original, width).get(RESIZE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException | TimeoutException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(imageResizer.getRetryAfterSeconds()));
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Image resizing is busy", e);
+        } catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not resize image", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted", e);
+        }
+    }
+
+    private void send(Path file, String etag, long lastModified, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = size - 1;
+        long[] range = requestedRange(request, etag, lastModified, size);
+        if (range != null) {
+            if (range[0] > range[1]) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (length == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        ByteBuffer mapped = mappedFiles.get(file, size);
+        if (mapped != null) {
+            mapped.position((int) start).limit((int) end + 1);
+            write(mapped, response.getOutputStream());
+        } else if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself once we return; the end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                while (position <= end) {
+                    position += channel.transferTo(position, end + 1 - position, out);
+                }
+            }
+        }
+    }
+
+    private static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * The single byte range asked for, as inclusive {start, end}; {1, 0} if
+     * it cannot be satisfied; null to send the whole file (no Range header,
+     * a stale If-Range, several ranges or a header we do not understand).
+     */
+    private static long[] requestedRange(HttpServletRequest request, String etag, long lastModified, long size) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRangeMatches(request, ifRange.trim(), etag, lastModified)) {
+            return null;
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1)); // the last N bytes
+                if (suffix == 0) {
+                    return new long[] { 1, 0 };
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                long last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (last < start) {
+                    return null; // invalid, so ignored
+                }
+                end = Math.min(last, size - 1);
+            }
+            return start >= size ? new long[] { 1, 0 } : new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // If-Range needs a strong match, so a weak tag never matches; nor does a date we cannot parse
+    private static boolean ifRangeMatches(HttpServletRequest request, String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -4,21 +4,34 @@ import com.shopscript.backend.dto.JwtResponse;
 import com.shopscript.backend.dto.LoginRequest;
 import com.shopscript.backend.entity.User;
 import com.shopscript.backend.security.JwtUtils;
+import com.shopscript.backend.security.JwtVerifier;
+import com.shopscript.backend.security.PasswordHashingExecutor;
+import com.shopscript.backend.security.UserPrincipal;
 import java.util.Optional;
 import com.shopscript.backend.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "http://localhost:3000")
 public class UserController {
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserService userService;
 
@@ -28,29 +41,38 @@ public class UserController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody User user) {
         if (userService.findByUsername(user.getUsername()).isPresent()) {
-            return ResponseEntity.badRequest().body("Error: Username is already taken!");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Error: Username is already taken!"));
         }
 
         // Force USER role for public registration
         user.setRole(User.Role.USER);
 
-        String rawPassword = user.getPassword();
-        User registeredUser = userService.registerUser(user);
-
-        // Auto-login after registration
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(user.getUsername(), rawPassword));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
-
-        return ResponseEntity.ok(new JwtResponse(jwt,
-                registeredUser.getId(),
-                registeredUser.getUsername(),
-                registeredUser.getRole().name()));
+        try {
+            return passwordHashingExecutor.submit(() -> userService.registerUser(user))
+                    .<ResponseEntity<?>>thenApply(registeredUser -> {
+                        // Auto-login after registration: the password was just hashed, no need to verify it
+                        UserPrincipal principal = new UserPrincipal(registeredUser.getId(),
+                                registeredUser.getUsername(), null, registeredUser.getRole().name());
+                        String jwt = jwtUtils.generateJwtToken(principal);
+
+                        return ResponseEntity.ok(new JwtResponse(jwt,
+                                registeredUser.getId(),
+                                registeredUser.getUsername(),
+                                registeredUser.getRole().name()));
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
     }
 
     @PostMapping("/create")
@@ -83,56 +105,56 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
-        System.out.println("Login attempt for username: " + loginRequest.getUsername());
-
-        // Check if user exists first (both User and Admin tables)
-        if (userService.findByUsername(loginRequest.getUsername()).isEmpty() &&
-                userService.findAdminByUsername(loginRequest.getUsername()).isEmpty()) {
-            return ResponseEntity.status(404).body("User not registered. Please create an account first.");
-        }
-
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
+        CompletableFuture<Authentication> authenticated;
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+            // One account lookup plus the BCrypt check, off the request thread
+            authenticated = passwordHashingExecutor.submit(() -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
 
-            System.out.println("Authentication successful for: " + loginRequest.getUsername());
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authenticated.<ResponseEntity<?>>thenApply(authentication -> {
             String jwt = jwtUtils.generateJwtToken(authentication);
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            System.out.println(
-                    "Principal: " + userDetails.getUsername() + ", Authorities: " + userDetails.getAuthorities());
-
-            // Check if Admin
-            java.util.Optional<com.shopscript.backend.entity.Admin> admin = userService
-                    .findAdminByUsername(userDetails.getUsername());
-            if (admin.isPresent()) {
-                System.out.println("User identified as Admin");
-                return ResponseEntity.ok(new JwtResponse(jwt,
-                        admin.get().getId(), // Uses Admin ID
-                        admin.get().getUsername(),
-                        "ADMIN"));
-            }
-
-            // check user
-            System.out.println("Checking for regular user");
-            User user = userService.findByUsername(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            // The principal already knows which table it came from (Admin IDs for admins)
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            logger.debug("Login succeeded for user {}", principal.getId());
 
-            System.out.println("User identified as Regular User: " + user.getRole());
             return ResponseEntity.ok(new JwtResponse(jwt,
-                    user.getId(),
-                    user.getUsername(),
-                    user.getRole().name()));
-        } catch (org.springframework.security.authentication.BadCredentialsException e) {
-            return ResponseEntity.status(401).body("Invalid password. Please try again.");
-        } catch (Exception e) {
-            System.out.println("Login failed for unknown reason: " + loginRequest.getUsername());
-            System.out.println("Exception message: " + e.getMessage());
-            e.printStackTrace();
+                    principal.getId(),
+                    principal.getUsername(),
+                    principal.getRole()));
+        }).exceptionally(failure -> {
+            Throwable e = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            if (e instanceof UsernameNotFoundException) {
+                return ResponseEntity.status(404).body("User not registered. Please create an account first.");
+            }
+            if (e instanceof BadCredentialsException) {
+                return ResponseEntity.status(401).body("Invalid password. Please try again.");
+            }
+            logger.error("Login failed unexpectedly", e);
             return ResponseEntity.status(500).body("Internal server error");
+        });
+    }
+
+    private ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHashingExecutor.getRetryAfterSeconds()))
+                .body("Too many sign-in attempts right now. Please try again shortly.");
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("No token to revoke");
         }
+        // Revoked tokens are rejected by JwtAuthenticationFilter until they expire
+        jwtVerifier.revoke(authorization.substring(7));
+        return ResponseEntity.ok("Logged out successfully");
     }
 
     @PostMapping("/forgot-password/get-question")
@@ -0,0 +1,113 @@
+package com.shopscript.backend.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many callers hold a connection from a pool at once. With virtual
+ * threads there can be thousands of requests in flight; they queue here
+ * (in arrival order) rather than inside the pool. Waiting is bounded, and
+ * a caller that cannot get a permit in time fails with
+ * {@link ConnectionBulkheadFullException} instead of holding its request
+ * open for the pool's full connection timeout. The permit is returned when
+ * the connection is closed.
+ */
+public class ConnectionBulkhead extends DelegatingDataSource {
+    private final String pool;
+    private final Semaphore permits;
+    private final long maxWaitMs;
+
+    private final Timer waits;
+    private final Counter rejected;
+
+    public ConnectionBulkhead(DataSource target, String pool, int maxConcurrent, long maxWaitMs,
+            MeterRegistry meterRegistry) {
+        super(target);
+        this.pool = pool;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitMs = maxWaitMs;
+        this.waits = Timer.builder("datasource.bulkhead.wait").tag("pool", pool).register(meterRegistry);
+        this.rejected = meterRegistry.counter("datasource.bulkhead.rejected", "pool", pool);
+        Gauge.builder("datasource.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+                .tag("pool", pool).register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return guarded(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return guarded(() -> super.getConnection(username, password));
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + pool + " connection", e);
+        } finally {
+            waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new ConnectionBulkheadFullException(pool, maxWaitMs);
+        }
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private Connection guarded(ConnectionSource source) throws SQLException {
+        Connection connection;
+        try {
+            connection = source.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            permits.release(); // once, however often close() is called
+                        }
+                    }
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
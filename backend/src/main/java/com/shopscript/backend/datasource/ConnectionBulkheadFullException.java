@@ -0,0 +1,17 @@
+package com.shopscript.backend.datasource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * No connection could be had within the bulkhead's wait limit. Resolved to
+ * 503 even when Hibernate or Spring wrap it, as the resolver follows causes.
+ */
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Database is busy, please retry")
+public class ConnectionBulkheadFullException extends SQLTransientConnectionException {
+    public ConnectionBulkheadFullException(String pool, long waitedMs) {
+        super("No " + pool + " database connection available within " + waitedMs + " ms");
+    }
+}
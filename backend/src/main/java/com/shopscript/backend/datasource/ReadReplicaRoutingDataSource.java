@@ -0,0 +1,160 @@
+package com.shopscript.backend.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the
+ * primary. Must sit behind a LazyConnectionDataSourceProxy, so the target is
+ * picked at the first statement, once the transaction's read-only flag is
+ * known.
+ *
+ * Replica reads may be stale, but only within bounds; otherwise they fall
+ * back to the primary:
+ * - {@link #checkReplica()} runs the lag query (required) and only lets reads
+ *   use the replica while it answers and reports at most
+ *   {@code maxStalenessMs} of lag; until the first check passes, and
+ *   whenever one fails, reads go to the primary;
+ * - for {@code maxStalenessMs} after a thread commits a write transaction,
+ *   its reads go to the primary, so the rest of that request (and the
+ *   after-commit cache reloads) sees its own writes. This is per thread and
+ *   ends with the request ({@link #endRequest}), so it covers only the
+ *   writing request, even on pooled request threads: a client's next request
+ *   may read from the replica and not yet see what it just wrote, for up to
+ *   the replica's lag;
+ * - code wrapped in {@link #onPrimary} reads from the primary regardless,
+ *   for data that is kept and served long after the read (the catalog cache).
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final DataSource replica;
+    private final long maxStalenessMs;
+    private final String lagQuery;
+    private volatile boolean replicaUsable; // until the first check says otherwise
+
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxStalenessMs, String lagQuery,
+            MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxStalenessMs = maxStalenessMs;
+        if (lagQuery == null || lagQuery.isBlank()) {
+            // Without a lag measurement nothing bounds how stale replica reads are
+            throw new IllegalArgumentException("app.datasource.replica.lag-query must be set to use a read replica");
+        }
+        this.lagQuery = lagQuery;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.replicaReads = meterRegistry.counter("datasource.reads", "target", "replica");
+        this.primaryReads = meterRegistry.counter("datasource.reads", "target", "primary");
+        Gauge.builder("datasource.replica.usable", this, r -> r.replicaUsable ? 1 : 0).register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit();
+            return Target.PRIMARY;
+        }
+        Long wrote = lastWrite.get();
+        if (!replicaUsable || primaryOnly.get() != null
+                || (wrote != null && System.currentTimeMillis() - wrote < maxStalenessMs)) {
+            primaryReads.increment();
+            return Target.PRIMARY;
+        }
+        replicaReads.increment();
+        return Target.REPLICA;
+    }
+
+    /** Forgets the current thread's last write; run when a request ends, so it never pins a later one. */
+    public static void endRequest() {
+        lastWrite.remove();
+    }
+
+    // A rolled-back transaction changed nothing the replica could be behind on
+    private static void recordWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lastWrite.set(System.currentTimeMillis());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrite.set(System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Runs {@code work} with its read-only transactions on the primary. Only
+     * transactions that connect inside it are affected, so call it outside
+     * any transaction that has already read from the replica.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean outermost = primaryOnly.get() == null;
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outermost) {
+                primaryOnly.remove();
+            }
+        }
+    }
+
+    /** Probes the replica and updates whether reads may use it; run periodically. */
+    public void checkReplica() {
+        boolean usable;
+        try (Connection connection = replica.getConnection()) {
+            Long lagSeconds = lagSeconds(connection);
+            usable = lagSeconds != null && lagSeconds * 1000 <= maxStalenessMs;
+        } catch (SQLException | RuntimeException e) {
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            logger.warn("Read replica is now {}", usable ? "in use" : "bypassed; reads go to the primary");
+            replicaUsable = usable;
+        }
+    }
+
+    // Seconds_Behind_Source from SHOW REPLICA STATUS, or else the first column; null when replication is stopped
+    private Long lagSeconds(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return null;
+            }
+            int column = 1;
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                if ("Seconds_Behind_Source".equalsIgnoreCase(rs.getMetaData().getColumnLabel(i))) {
+                    column = i;
+                }
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
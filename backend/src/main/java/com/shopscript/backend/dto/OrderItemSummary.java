@@ -0,0 +1,40 @@
+package com.shopscript.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of an order line, with the product reduced to what an
+ * order listing shows.
+ */
+@Data
+public class OrderItemSummary {
+    @JsonIgnore
+    private Long orderId;
+    private Long id;
+    private ProductRef product;
+    private Integer quantity;
+    private String selectedSize;
+    private BigDecimal price;
+
+    // Used by the JPQL constructor expression in OrderRepository
+    public OrderItemSummary(Long orderId, Long id, Long productId, String productName, String productImageUrl,
+            Integer quantity, String selectedSize, BigDecimal price) {
+        this.orderId = orderId;
+        this.id = id;
+        this.product = productId == null ? null : new ProductRef(productId, productName, productImageUrl);
+        this.quantity = quantity;
+        this.selectedSize = selectedSize;
+        this.price = price;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ProductRef {
+        private Long id;
+        private String name;
+        private String imageUrl;
+    }
+}
@@ -0,0 +1,12 @@
+package com.shopscript.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class OrderPage {
+    private List<OrderSummary> items;
+    private String nextCursor; // null when this is the last page
+}
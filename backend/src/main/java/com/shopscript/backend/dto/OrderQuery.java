@@ -0,0 +1,31 @@
+package com.shopscript.backend.dto;
+
+import com.shopscript.backend.entity.Order;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.time.LocalDate;
+
+/**
+ * Order filter bound from the query string of the paged order endpoints.
+ * Both dates are inclusive calendar days.
+ */
+@Data
+public class OrderQuery {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private Order.Status status;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    private String cursor;
+    private Integer limit;
+
+    public int effectiveLimit() {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
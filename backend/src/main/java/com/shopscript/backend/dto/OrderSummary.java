@@ -0,0 +1,47 @@
+package com.shopscript.backend.dto;
+
+import com.shopscript.backend.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of an order for listings. Serializes with the same field
+ * names as {@link Order}, but the user is reduced to id and username and
+ * nothing is loaded lazily.
+ */
+@Data
+public class OrderSummary {
+    private Long id;
+    private Customer user;
+    private BigDecimal totalAmount;
+    private Order.Status status;
+    private LocalDateTime createdAt;
+    private String shippingAddress;
+    private String paymentMethod;
+    private String paymentStatus;
+    private List<OrderItemSummary> items = new ArrayList<>();
+
+    // Used by the JPA constructor expression in OrderRepositoryImpl
+    public OrderSummary(Long id, Long userId, String username, BigDecimal totalAmount, Order.Status status,
+            LocalDateTime createdAt, String shippingAddress, String paymentMethod, String paymentStatus) {
+        this.id = id;
+        this.user = new Customer(userId, username);
+        this.totalAmount = totalAmount;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.shippingAddress = shippingAddress;
+        this.paymentMethod = paymentMethod;
+        this.paymentStatus = paymentStatus;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Customer {
+        private Long id;
+        private String username;
+    }
+}
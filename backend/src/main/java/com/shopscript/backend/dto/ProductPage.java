@@ -0,0 +1,13 @@
+package com.shopscript.backend.dto;
+
+import com.shopscript.backend.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPage {
+    private List<Product> items;
+    private String nextCursor; // null when this is the last page
+}
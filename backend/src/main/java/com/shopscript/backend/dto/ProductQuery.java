@@ -0,0 +1,33 @@
+package com.shopscript.backend.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Catalog filter bound from the query string of GET /api/products/catalog.
+ */
+@Data
+public class ProductQuery {
+    public static final int DEFAULT_LIMIT = 24;
+    public static final int MAX_LIMIT = 100;
+
+    private String category;
+    private String subcategory;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+    private Sort sort = Sort.NEWEST;
+    private String cursor;
+    private Integer limit;
+
+    public int effectiveLimit() {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public enum Sort {
+        NEWEST, PRICE_ASC, PRICE_DESC, NAME_ASC
+    }
+}
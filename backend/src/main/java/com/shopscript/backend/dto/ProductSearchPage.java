@@ -0,0 +1,15 @@
+package com.shopscript.backend.dto;
+
+import com.shopscript.backend.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductSearchPage {
+    private List<Product> items; // best match first
+    private int total;
+    private int page;
+    private int size;
+}
@@ -0,0 +1,10 @@
+package com.shopscript.backend.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class ReviewModerationRequest {
+    private List<Long> ids;
+    private boolean approved; // false rejects
+}
@@ -0,0 +1,12 @@
+package com.shopscript.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ReviewPage {
+    private List<ReviewSummary> items;
+    private String nextCursor; // null when this is the last page
+}
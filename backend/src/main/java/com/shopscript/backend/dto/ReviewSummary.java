@@ -0,0 +1,20 @@
+package com.shopscript.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Review as listed on product pages and in the moderation queue, with the
+ * product and author reduced to what those lists show.
+ */
+@Data
+@AllArgsConstructor
+public class ReviewSummary {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String username;
+    private Integer rating;
+    private String comment;
+    private boolean approved;
+}
@@ -0,0 +1,17 @@
+package com.shopscript.backend.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+public class SalesFigures {
+    private BigDecimal revenue = BigDecimal.ZERO;
+    private long orders;
+    private long units;
+
+    public void add(BigDecimal revenue, long orders, long units) {
+        this.revenue = this.revenue.add(revenue);
+        this.orders += orders;
+        this.units += units;
+    }
+}
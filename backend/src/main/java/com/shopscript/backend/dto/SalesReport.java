@@ -0,0 +1,21 @@
+package com.shopscript.backend.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales between two days (inclusive). Totals, days and categories count only
+ * orders that still hold stock (not rejected or cancelled); byStatus shows
+ * every status.
+ */
+@Data
+public class SalesReport {
+    private LocalDate from;
+    private LocalDate to;
+    private SalesFigures total = new SalesFigures();
+    private Map<LocalDate, SalesFigures> byDay = new TreeMap<>();
+    private Map<String, SalesFigures> byCategory = new TreeMap<>();
+    private Map<String, SalesFigures> byStatus = new TreeMap<>();
+}
@@ -0,0 +1,13 @@
+package com.shopscript.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SalesRollupCheck {
+    private boolean consistent;
+    private int rowsChecked;
+    private List<String> mismatches; // "day/category/status: stored ... expected ..."
+}
@@ -7,10 +7,17 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // A user's orders, newest first
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at desc, id desc"),
+        // Admin pages and exports by status, then date
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at desc, id desc"),
+        @Index(name = "idx_orders_created", columnList = "created_at desc, id desc") })
 public class Order {
+    // Pooled sequence (a table on MySQL) instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq")
+    @SequenceGenerator(name = "order_seq", sequenceName = "order_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -6,10 +6,12 @@ import java.math.BigDecimal;
 
 @Entity
 @Data
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order", columnList = "order_id, id"))
 public class OrderItem {
+    // Pooled sequence (a table on MySQL) instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,4 +28,18 @@ public class OrderItem {
     private String selectedSize;
 
     private BigDecimal price;
+
+    // The size's variant, resolved when the order is priced; cleared if the size is later removed.
+    // Eager like product: a lazy proxy here would also end up in product.variants and break its JSON
+    @ManyToOne
+    @JoinColumn(name = "variant_id", foreignKey = @ForeignKey(name = "fk_order_items_variant"))
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    @lombok.ToString.Exclude
+    @lombok.EqualsAndHashCode.Exclude
+    private ProductVariant variant;
+
+    // Whether reservation debited the variant's own stock rather than the product's; release credits the same row
+    @Column(name = "variant_stock", nullable = false, columnDefinition = "boolean not null default false")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private boolean variantStock;
 }
@@ -1,12 +1,26 @@
 package com.shopscript.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Entity
 @Data
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Catalog listing and filters, newest first
+        @Index(name = "idx_products_deleted_category_subcategory", columnList = "deleted, category, subcategory, id"),
+        // Price and name sorts
+        @Index(name = "idx_products_deleted_price", columnList = "deleted, price, id"),
+        @Index(name = "idx_products_deleted_name", columnList = "deleted, name, id") })
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,10 +46,80 @@ public class Product {
     @Column(length = 2000)
     private String details;
 
-    private String sizes; // Comma separated sizes e.g. "S,M,L,XL"
+    // One row per size with its own price and stock; loaded with the product so the cached catalog carries it
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OrderBy("sortOrder")
+    @BatchSize(size = 100)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<ProductVariant> variants = new ArrayList<>();
 
-    @Column(length = 2000)
-    private String sizePrices; // JSON string e.g. {"S": 100, "M": 120}
+    // Sizes in the pre-variant request format, applied to variants by ProductService
+    @Transient
+    @JsonIgnore
+    private String requestedSizes;
+
+    @Transient
+    @JsonIgnore
+    private String requestedSizePrices;
 
     private boolean deleted = false;
+
+    @Embedded
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private RatingSummary rating = new RatingSummary();
+
+    // Bumped on every write, including the stock and rating bulk UPDATEs; exposed as the ETag
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastModified;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        lastModified = LocalDateTime.now();
+    }
+
+    /** Comma separated sizes e.g. "S,M,L,XL", as the API served them before variants. */
+    @JsonProperty("sizes")
+    public String getSizes() {
+        if (variants.isEmpty()) {
+            return null;
+        }
+        return variants.stream().map(ProductVariant::getSize).collect(Collectors.joining(","));
+    }
+
+    @JsonProperty("sizes")
+    public void setSizes(String sizes) {
+        this.requestedSizes = sizes;
+    }
+
+    /** JSON string of the sizes that have their own price e.g. {"S":100,"M":120}, as served before variants. */
+    @JsonProperty("sizePrices")
+    public String getSizePrices() {
+        String prices = variants.stream()
+                .filter(v -> v.getPrice() != null)
+                .map(v -> "\"" + v.getSize().replace("\\", "\\\\").replace("\"", "\\\"") + "\":"
+                        + v.getPrice().toPlainString())
+                .collect(Collectors.joining(","));
+        return prices.isEmpty() ? null : "{" + prices + "}";
+    }
+
+    @JsonProperty("sizePrices")
+    public void setSizePrices(String sizePrices) {
+        this.requestedSizePrices = sizePrices;
+    }
+
+    public ProductVariant findVariant(String size) {
+        for (ProductVariant variant : variants) {
+            if (variant.getSize().equals(size)) {
+                return variant;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,37 @@
+package com.shopscript.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.math.BigDecimal;
+
+// One purchasable size of a product. The unique key doubles as the index checkout looks lines up by.
+@Entity
+@Data
+@Table(name = "product_variants", uniqueConstraints = @UniqueConstraint(name = "uk_product_variants_product_size",
+        columnNames = { "product_id", "size" }))
+public class ProductVariant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Product product;
+
+    @Column(nullable = false, length = 64)
+    private String size;
+
+    private BigDecimal price; // null: sold at the product's price
+
+    private Integer stock; // null: draws on the product's stock
+
+    @Column(name = "sort_order", nullable = false)
+    @JsonIgnore
+    private int sortOrder;
+}
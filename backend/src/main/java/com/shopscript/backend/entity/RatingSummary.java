@@ -0,0 +1,57 @@
+package com.shopscript.backend.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Data;
+
+/**
+ * Approved-review statistics stored on the product row. The columns are only
+ * ever changed by atomic UPDATEs in ProductRepository (never by saving the
+ * entity), so a product edit cannot overwrite a concurrent rating change.
+ */
+@Embeddable
+@Data
+public class RatingSummary {
+    private static final String COUNTER = "integer not null default 0";
+
+    @Column(name = "rating_count", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int count;
+
+    @JsonIgnore
+    @Column(name = "rating_sum", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int sum;
+
+    @JsonIgnore
+    @Column(name = "rating_1", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int ones;
+
+    @JsonIgnore
+    @Column(name = "rating_2", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int twos;
+
+    @JsonIgnore
+    @Column(name = "rating_3", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int threes;
+
+    @JsonIgnore
+    @Column(name = "rating_4", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int fours;
+
+    @JsonIgnore
+    @Column(name = "rating_5", insertable = false, updatable = false, columnDefinition = COUNTER)
+    private int fives;
+
+    /** Mean rating rounded to two decimals, or 0 when there are no approved reviews. */
+    @JsonProperty("average")
+    public double getAverage() {
+        return count == 0 ? 0 : Math.round(sum * 100.0 / count) / 100.0;
+    }
+
+    /** Approved review counts for 1 to 5 stars, in that order. */
+    @JsonProperty("histogram")
+    public int[] getHistogram() {
+        return new int[] { ones, twos, threes, fours, fives };
+    }
+}
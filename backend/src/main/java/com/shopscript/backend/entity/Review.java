@@ -5,7 +5,11 @@ import lombok.Data;
 
 @Entity
 @Data
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        // Approved reviews of a product, newest first
+        @Index(name = "idx_reviews_product_approved_id", columnList = "product_id, is_approved, id"),
+        // Moderation queue, oldest first
+        @Index(name = "idx_reviews_approved_rejected_id", columnList = "is_approved, rejected, id") })
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,4 +29,8 @@ public class Review {
     private String comment;
 
     private boolean isApproved;
+
+    // Rejected reviews stay hidden and leave the moderation queue
+    @Column(columnDefinition = "boolean not null default false")
+    private boolean rejected;
 }
@@ -0,0 +1,31 @@
+package com.shopscript.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Sales totals for one (day, category, status) cell. The {@link #ALL_CATEGORIES}
+ * row of a day and status covers whole orders: its revenue is the sum of
+ * order totals. Category rows cover only the lines in that category, and
+ * count each order once per category it appears in.
+ */
+@Entity
+@Data
+@Table(name = "sales_rollups")
+public class SalesRollup {
+    public static final String ALL_CATEGORIES = "_all";
+    public static final String NO_CATEGORY = "_none"; // lines whose product is gone or has no category
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+}
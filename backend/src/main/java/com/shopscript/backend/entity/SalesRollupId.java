@@ -0,0 +1,24 @@
+package com.shopscript.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupId implements Serializable {
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate salesDay;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+}
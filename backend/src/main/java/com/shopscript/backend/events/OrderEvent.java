@@ -0,0 +1,111 @@
+package com.shopscript.backend.events;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Something that happened to an order, captured when it happened. Events
+ * are immutable and carry everything consumers need, so a consumer never
+ * has to read the order back (and never sees a later state of it). They
+ * are stored as JSON in the order_events outbox until consumed.
+ */
+public final class OrderEvent {
+
+    public enum Type {
+        CREATED, STATUS_CHANGED
+    }
+
+    public record Line(Long productId, Integer quantity, BigDecimal price) {
+    }
+
+    private final Type type;
+    private final Long orderId;
+    private final Long userId;
+    private final LocalDateTime createdAt;
+    private final BigDecimal totalAmount;
+    private final Order.Status previousStatus; // null for CREATED
+    private final Order.Status status;
+    private final List<Line> lines;
+
+    private OrderEvent(Type type, Order order, Order.Status previousStatus, Order.Status status) {
+        this.type = type;
+        this.orderId = order.getId();
+        this.userId = order.getUser() != null ? order.getUser().getId() : null;
+        this.createdAt = order.getCreatedAt();
+        this.totalAmount = order.getTotalAmount();
+        this.previousStatus = previousStatus;
+        this.status = status;
+        List<Line> copy = new ArrayList<>();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                Long productId = item.getProduct() != null ? item.getProduct().getId() : null;
+                copy.add(new Line(productId, item.getQuantity(), item.getPrice()));
+            }
+        }
+        this.lines = Collections.unmodifiableList(copy);
+    }
+
+    @JsonCreator
+    private OrderEvent(@JsonProperty("type") Type type, @JsonProperty("orderId") Long orderId,
+            @JsonProperty("userId") Long userId, @JsonProperty("createdAt") LocalDateTime createdAt,
+            @JsonProperty("totalAmount") BigDecimal totalAmount,
+            @JsonProperty("previousStatus") Order.Status previousStatus,
+            @JsonProperty("status") Order.Status status, @JsonProperty("lines") List<Line> lines) {
+        this.type = type;
+        this.orderId = orderId;
+        this.userId = userId;
+        this.createdAt = createdAt;
+        this.totalAmount = totalAmount;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.lines = lines != null ? List.copyOf(lines) : List.of();
+    }
+
+    public static OrderEvent created(Order order) {
+        return new OrderEvent(Type.CREATED, order, null, order.getStatus());
+    }
+
+    public static OrderEvent statusChanged(Order order, Order.Status previousStatus, Order.Status status) {
+        return new OrderEvent(Type.STATUS_CHANGED, order, previousStatus, status);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Order.Status getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Order.Status getStatus() {
+        return status;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+}
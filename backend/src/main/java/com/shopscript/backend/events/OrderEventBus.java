@@ -0,0 +1,385 @@
+package com.shopscript.backend.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pipeline for order lifecycle events.
+ *
+ * Publishing writes the event to the order_events outbox, one row per
+ * {@link OrderEventConsumer}, in the caller's transaction: the event exists
+ * exactly when the order change it describes was committed. After commit
+ * the event also goes into a bounded lock-free {@link RingBuffer}. Every
+ * consumer bean gets its own thread, which drains all events published
+ * since its last pass as one batch. Request threads only pay for the insert
+ * and the publish.
+ *
+ * A batch is delivered in a transaction that first deletes its rows from the
+ * outbox and skips any that are already gone, so each event is consumed
+ * once even when several instances share the database. The ring is only
+ * the fast path: events it never carried (the ring was full, or the process
+ * died between commit and publish) and batches whose consumer threw stay
+ * in the outbox, and each consumer thread redelivers its rows older than
+ * {@code app.events.retry-interval-ms} every such interval. A redelivered
+ * batch that fails is retried one event at a time, so an event the consumer
+ * always rejects (or cannot be read back) holds up only itself; each such
+ * failure counts as an attempt on its row, and after
+ * {@code app.events.max-attempts} the row is dead-lettered: kept in the
+ * outbox with {@code dead_at} set, but no longer retried.
+ */
+@Component
+public class OrderEventBus {
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventBus.class);
+
+    private static final Object PENDING_KEY = new Object();
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /** An event and its outbox row for each consumer, as carried by the ring. */
+    private record Published(OrderEvent event, Map<String, Long> rows) {
+    }
+
+    /** One consumer's outbox row; the event is null when its payload cannot be read back. */
+    private record Row(long id, OrderEvent event, int attempts) {
+    }
+
+    private final RingBuffer<Published> ring;
+    private final List<Worker> workers = new ArrayList<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxBatch;
+    private final long retryIntervalMs;
+    private final int maxAttempts;
+    private final Counter published;
+    private final Counter deferred;
+    private volatile boolean running = true;
+
+    public OrderEventBus(List<OrderEventConsumer> consumers, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.events.ring-size:8192}") int ringSize,
+            @Value("${app.events.max-batch:256}") int maxBatch,
+            @Value("${app.events.retry-interval-ms:5000}") long retryIntervalMs,
+            @Value("${app.events.max-attempts:10}") int maxAttempts) {
+        this.ring = new RingBuffer<>(ringSize);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.maxBatch = maxBatch;
+        this.retryIntervalMs = retryIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.published = meterRegistry.counter("order.events.published");
+        this.deferred = meterRegistry.counter("order.events.deferred");
+        for (OrderEventConsumer consumer : consumers) {
+            workers.add(new Worker(consumer, ring.newCursor(), meterRegistry));
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Records the event in the outbox as part of the current transaction and
+     * hands it to the consumers after commit (never if it rolls back). Without
+     * a transaction the row is committed and the event handed over at once.
+     */
+    public void publishAfterCommit(OrderEvent event) {
+        if (workers.isEmpty()) {
+            return;
+        }
+        Published entry = new Published(event, store(event));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(entry);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Published> pending = (List<Published>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending == null) {
+            List<Published> entries = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(PENDING_KEY, entries);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+                    if (status == STATUS_COMMITTED) {
+                        entries.forEach(OrderEventBus.this::publish);
+                    }
+                }
+            });
+            pending = entries;
+        }
+        pending.add(entry);
+    }
+
+    private Map<String, Long> store(OrderEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order event for order " + event.getOrderId(), e);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Long> rows = new HashMap<>();
+        for (Worker worker : workers) {
+            KeyHolder key = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO order_events (consumer, created_at, payload) VALUES (?, ?, ?)",
+                        new String[] { "id" });
+                statement.setString(1, worker.consumer.getName());
+                statement.setTimestamp(2, now);
+                statement.setString(3, payload);
+                return statement;
+            }, key);
+            rows.put(worker.consumer.getName(), key.getKey().longValue());
+        }
+        return rows;
+    }
+
+    // A full ring (or a stopping bus) leaves the event to the outbox sweep
+    private void publish(Published entry) {
+        if (!running || !ring.offer(entry)) {
+            deferred.increment();
+            logger.warn("Order event bus full, {} event for order {} left to the outbox", entry.event().getType(),
+                    entry.event().getOrderId());
+            return;
+        }
+        published.increment();
+        for (Worker worker : workers) {
+            if (worker.parked) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+    }
+
+    /**
+     * Deletes the consumer's undelivered events, in the caller's transaction.
+     * For a consumer that is recomputing its state from the orders table,
+     * which already reflects them.
+     */
+    public int discardPending(OrderEventConsumer consumer) {
+        return jdbcTemplate.update("DELETE FROM order_events WHERE consumer = ?", consumer.getName());
+    }
+
+    /** Stops the consumer threads once they have drained what was already published. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final OrderEventConsumer consumer;
+        final AtomicLong cursor; // last sequence this consumer has finished with
+        final Thread thread;
+        final Counter consumed;
+        final Counter failed;
+        final Counter deadLettered;
+        final DistributionSummary batchSize;
+        volatile boolean parked;
+        long nextSweep = System.nanoTime(); // first sweep picks up what a previous run left behind
+
+        Worker(OrderEventConsumer consumer, AtomicLong cursor, MeterRegistry meterRegistry) {
+            this.consumer = consumer;
+            this.cursor = cursor;
+            String name = consumer.getName();
+            this.consumed = Counter.builder("order.events.consumed").tag("consumer", name).register(meterRegistry);
+            this.failed = Counter.builder("order.events.failed").tag("consumer", name).register(meterRegistry);
+            this.deadLettered = Counter.builder("order.events.dead").tag("consumer", name)
+                    .register(meterRegistry);
+            this.batchSize = DistributionSummary.builder("order.events.batch.size").tag("consumer", name)
+                    .register(meterRegistry);
+            Gauge.builder("order.events.lag", this, w -> ring.claimed() - w.cursor.get()).tag("consumer", name)
+                    .register(meterRegistry);
+            this.thread = new Thread(this, "order-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                if (running && System.nanoTime() - nextSweep >= 0) {
+                    sweep();
+                    nextSweep = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+                }
+                long next = cursor.get() + 1;
+                long available = ring.highestPublished(next, Math.min(ring.claimed(), next + maxBatch - 1));
+                if (available < next) {
+                    if (!running && ring.claimed() < next) {
+                        return;
+                    }
+                    if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = true;
+                        // Re-check after advertising that we are parked, or a publish could slip past the unpark
+                        if (ring.highestPublished(next, ring.claimed()) < next && running) {
+                            LockSupport.parkNanos(this, PARK_NANOS);
+                        }
+                        parked = false;
+                    }
+                    continue;
+                }
+                idle = 0;
+
+                List<Row> batch = new ArrayList<>((int) (available - next + 1));
+                for (long sequence = next; sequence <= available; sequence++) {
+                    Published entry = ring.get(sequence);
+                    batch.add(new Row(entry.rows().get(consumer.getName()), entry.event(), 0));
+                }
+                // Rows of a failed batch stay in the outbox, so moving on does not lose them
+                deliver(batch);
+                cursor.set(available);
+            }
+        }
+
+        /**
+         * Redelivers this consumer's live rows older than the retry interval,
+         * a batch at a time in id order. Each sweep passes every row once, so
+         * rows that fail wait for the next sweep rather than being retried
+         * at once.
+         */
+        private void sweep() {
+            long after = 0;
+            while (running) {
+                Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(Duration.ofMillis(retryIntervalMs)));
+                List<Row> rows;
+                try {
+                    rows = jdbcTemplate.query(
+                            "SELECT id, payload, attempts FROM order_events WHERE consumer = ? AND dead_at IS NULL "
+                                    + "AND id > ? AND created_at < ? ORDER BY id LIMIT ?",
+                            (rs, i) -> new Row(rs.getLong("id"), readEvent(rs.getLong("id"), rs.getString("payload")),
+                                    rs.getInt("attempts")),
+                            consumer.getName(), after, cutoff, maxBatch);
+                } catch (RuntimeException e) {
+                    logger.error("Order event consumer {} could not read its outbox", consumer.getName(), e);
+                    return;
+                }
+                if (rows.isEmpty()) {
+                    return;
+                }
+                List<Row> readable = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    if (row.event() != null) {
+                        readable.add(row);
+                    } else {
+                        recordFailure(row);
+                    }
+                }
+                if (!readable.isEmpty() && !deliver(readable)) {
+                    // Find the events the consumer rejects, so they do not hold back the rest
+                    for (Row row : readable) {
+                        if (!deliver(List.of(row))) {
+                            recordFailure(row);
+                        }
+                    }
+                }
+                if (rows.size() < maxBatch) {
+                    return;
+                }
+                after = rows.get(rows.size() - 1).id();
+            }
+        }
+
+        /** Counts a failed redelivery of the row, dead-lettering it once it has used up its attempts. */
+        private void recordFailure(Row row) {
+            try {
+                if (row.attempts() + 1 < maxAttempts) {
+                    jdbcTemplate.update("UPDATE order_events SET attempts = attempts + 1 WHERE id = ?", row.id());
+                    return;
+                }
+                jdbcTemplate.update("UPDATE order_events SET attempts = attempts + 1, dead_at = ? WHERE id = ?",
+                        Timestamp.valueOf(LocalDateTime.now()), row.id());
+                deadLettered.increment();
+                logger.error("Order event {} for consumer {} failed {} times, dead-lettered in the outbox",
+                        row.id(), consumer.getName(), row.attempts() + 1);
+            } catch (RuntimeException e) {
+                logger.error("Order event consumer {} could not record a failure of event {}", consumer.getName(),
+                        row.id(), e);
+            }
+        }
+
+        /**
+         * Claims the rows by deleting them and hands the events whose rows
+         * were still there to the consumer, all in one transaction. Returns
+         * false if the consumer failed and the rows were rolled back.
+         */
+        private boolean deliver(List<Row> rows) {
+            try {
+                Integer delivered = transactionTemplate.execute(status -> {
+                    String ids = String.join(",", Collections.nCopies(rows.size(), "?"));
+                    Object[] args = rows.stream().map(Row::id).toArray();
+                    Set<Long> claimed = new HashSet<>(jdbcTemplate.queryForList(
+                            "SELECT id FROM order_events WHERE id IN (" + ids + ") FOR UPDATE", Long.class, args));
+                    if (claimed.isEmpty()) {
+                        return 0;
+                    }
+                    jdbcTemplate.update("DELETE FROM order_events WHERE id IN (" + ids + ")", args);
+                    List<OrderEvent> events = new ArrayList<>(claimed.size());
+                    for (Row row : rows) {
+                        if (claimed.contains(row.id())) {
+                            events.add(row.event());
+                        }
+                    }
+                    consumer.onEvents(events);
+                    return events.size();
+                });
+                if (delivered != null && delivered > 0) {
+                    consumed.increment(delivered);
+                    batchSize.record(delivered);
+                }
+                return true;
+            } catch (RuntimeException e) {
+                failed.increment(rows.size());
+                logger.error("Order event consumer {} failed on a batch of {}, left in the outbox for retry",
+                        consumer.getName(), rows.size(), e);
+                return false;
+            }
+        }
+    }
+
+    private OrderEvent readEvent(long id, String payload) {
+        try {
+            return objectMapper.readValue(payload, OrderEvent.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Unreadable order event {} in the outbox", id, e);
+            return null;
+        }
+    }
+}
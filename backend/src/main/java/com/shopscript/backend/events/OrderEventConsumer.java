@@ -0,0 +1,23 @@
+package com.shopscript.backend.events;
+
+import java.util.List;
+
+/**
+ * Receives order events on its own thread, in publication order, in batches
+ * of whatever has accumulated since the last call. Every consumer bean is
+ * registered with {@link OrderEventBus} automatically.
+ */
+public interface OrderEventConsumer {
+    /** Used as the consumer tag on metrics and in the thread name. */
+    String getName();
+
+    /**
+     * Handles a batch. Runs inside the transaction that removes the batch
+     * from the outbox, so database writes made here (joining that
+     * transaction) happen exactly once per event. An exception rolls the
+     * batch back into the outbox to be retried later, one event at a time
+     * and up to {@code app.events.max-attempts} times; the consumer carries
+     * on with the next one meanwhile, so retried events arrive out of order.
+     */
+    void onEvents(List<OrderEvent> events);
+}
@@ -0,0 +1,99 @@
+package com.shopscript.backend.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, multi-consumer broadcast ring. Producers claim a
+ * sequence with a CAS on {@link #claimed}, write the slot and then stamp
+ * the slot's sequence in {@link #published}; no locks are taken on either
+ * side. Every consumer owns a cursor (the last sequence it has finished)
+ * and sees every element. A producer refuses to overwrite a slot until the
+ * slowest consumer has moved past it.
+ */
+final class RingBuffer<T> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLongArray published; // per slot: the sequence last written into it
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<AtomicLong> cursors = new CopyOnWriteArrayList<>();
+    private volatile long slowestCursor = -1; // cached minimum of cursors, refreshed when it gets in the way
+
+    RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /** Registers a consumer cursor positioned after everything claimed so far. */
+    AtomicLong newCursor() {
+        AtomicLong cursor = new AtomicLong(claimed.get());
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    /** Publishes the value, or returns false straight away if the slowest consumer is a full lap behind. */
+    boolean offer(T value) {
+        long next;
+        while (true) {
+            long current = claimed.get();
+            next = current + 1;
+            long wrapPoint = next - capacity;
+            if (wrapPoint > slowestCursor) {
+                long slowest = slowest(current);
+                slowestCursor = slowest;
+                if (wrapPoint > slowest) {
+                    return false;
+                }
+            }
+            if (claimed.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        int index = (int) next & mask;
+        slots.set(index, value);
+        published.set(index, next); // volatile write: the slot is visible to any reader of this stamp
+        return true;
+    }
+
+    /** Last sequence claimed by any producer (possibly not yet published). */
+    long claimed() {
+        return claimed.get();
+    }
+
+    /**
+     * Highest sequence in [from, upTo] such that every sequence from
+     * {@code from} up to it is published, or {@code from - 1} if none is.
+     */
+    long highestPublished(long from, long upTo) {
+        for (long sequence = from; sequence <= upTo; sequence++) {
+            if (published.get((int) sequence & mask) != sequence) {
+                return sequence - 1;
+            }
+        }
+        return upTo;
+    }
+
+    T get(long sequence) {
+        return slots.get((int) sequence & mask);
+    }
+
+    private long slowest(long fallback) {
+        long slowest = fallback;
+        for (AtomicLong cursor : cursors) {
+            slowest = Math.min(slowest, cursor.get());
+        }
+        return slowest;
+    }
+}
@@ -0,0 +1,223 @@
+package com.shopscript.backend.images;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downscaled copies of uploaded images at a fixed set of widths.
+ *
+ * Decoding and scaling are CPU- and memory-heavy, so they run on a small
+ * fixed pool with a bounded queue; when it is full new work is refused with
+ * {@link RejectedExecutionException} instead of piling up. Concurrent
+ * requests for the same variant share one resize, and finished variants
+ * are kept in a {@link VariantCache} on disk. Images that are already
+ * narrow enough, that ImageIO cannot decode (e.g. WebP) or that are too
+ * large to decode safely are served as the original.
+ */
+@Component
+public class ImageResizer {
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L; // ~160 MB decoded as ARGB
+
+    private final Set<Integer> widths;
+    private final VariantCache cache;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> servedAsOriginal = ConcurrentHashMap.newKeySet();
+    private final int retryAfterSeconds;
+
+    private final Timer resizeLatency;
+    private final Counter hits;
+    private final Counter rejected;
+
+    public ImageResizer(MeterRegistry meterRegistry,
+            @Value("${app.images.widths:160,320,640,960,1280}") List<Integer> widths,
+            @Value("${app.images.threads:2}") int threads,
+            @Value("${app.images.queue-capacity:32}") int queueCapacity,
+            @Value("${app.images.retry-after-seconds:1}") int retryAfterSeconds,
+            @Value("${app.images.cache-dir:${java.io.tmpdir}/shopscript-image-variants}") String cacheDir,
+            @Value("${app.images.cache-max-bytes:268435456}") long cacheMaxBytes) {
+        this.widths = new TreeSet<>(widths);
+        this.cache = new VariantCache(Paths.get(cacheDir).toAbsolutePath().normalize(), cacheMaxBytes);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-resize-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.resizeLatency = Timer.builder("images.resize.latency").register(meterRegistry);
+        this.hits = meterRegistry.counter("images.variants.hits");
+        this.rejected = meterRegistry.counter("images.resize.rejected");
+        Gauge.builder("images.variants.bytes", cache, VariantCache::getTotalBytes).register(meterRegistry);
+        Gauge.builder("images.resize.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public boolean isAllowedWidth(int width) {
+        return widths.contains(width);
+    }
+
+    public Set<Integer> getWidths() {
+        return widths;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * The file to serve for {@code original} at {@code width}: a cached or
+     * freshly made variant, or the original itself. Original names must be
+     * unique per content (uploads are), as variants are keyed by name.
+     * Throws {@link RejectedExecutionException} if a resize is needed and
+     * the pool is saturated.
+     */
+    public CompletableFuture<Path> variant(Path original, int width) {
+        String key = variantKey(original.getFileName().toString(), width);
+        Path cached = servedAsOriginal.contains(key) ? original : cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    mine.complete(resizeLatency.recordCallable(() -> resize(original, width, key)));
+                } catch (Throwable e) {
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, mine);
+            rejected.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        return mine;
+    }
+
+    private Path resize(Path original, int width, String key) throws IOException {
+        Path cached = cache.get(key); // another request may have finished it while we were queued
+        if (cached != null) {
+            return cached;
+        }
+        BufferedImage source = decode(original, width);
+        if (source == null) {
+            servedAsOriginal.add(key);
+            return original;
+        }
+
+        String format = outputFormat(key);
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        int type = format.equals("png") && source.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB
+                : BufferedImage.TYPE_INT_RGB;
+
+        // Halve in steps: a single bilinear pass from far above the target size aliases badly
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(w / 2, width);
+            h = Math.max(h / 2, height);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != width || h != height);
+
+        Path temp = cache.newTempFile(key);
+        try {
+            if (!ImageIO.write(current, format, temp.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            return cache.add(key, temp);
+        } catch (IOException | RuntimeException e) {
+            VariantCache.deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    /** Decodes the original, or returns null if it should be served unchanged. */
+    private static BufferedImage decode(Path original, int width) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot read " + original);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // Dimensions come from the header, so oversized images are refused before decoding
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (reader.getWidth(0) <= width || pixels > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** e.g. "photo.png" at 320 becomes "photo.w320.png"; anything but JPEG is re-encoded as PNG. */
+    static String variantKey(String name, int width) {
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        String format = extension.equals("jpg") || extension.equals("jpeg") ? "jpg" : "png";
+        return base + ".w" + width + "." + format;
+    }
+
+    private static String outputFormat(String key) {
+        return key.substring(key.lastIndexOf('.') + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.shopscript.backend.images;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Resized images on disk, evicted least recently used first once their
+ * total size exceeds a byte budget. The index lives in memory and is
+ * rebuilt from the directory on startup, oldest files first, so the cache
+ * survives restarts. Entries are written to a temporary file and moved into
+ * place, so a reader never sees a half-written variant.
+ */
+class VariantCache {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    VariantCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(dir);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            files.stream()
+                    .sorted(Comparator.comparing(VariantCache::lastModified))
+                    .forEach(file -> {
+                        String key = file.getFileName().toString();
+                        if (key.endsWith(TEMP_SUFFIX)) {
+                            deleteQuietly(file); // left behind by a crash mid-write
+                        } else {
+                            sizes.put(key, size(file));
+                            totalBytes += sizes.get(key);
+                        }
+                    });
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the image variant cache at " + dir, e);
+        }
+    }
+
+    /** Cached file for {@code key}, now the most recently used, or null on a miss. */
+    synchronized Path get(String key) {
+        return sizes.get(key) != null ? dir.resolve(key) : null;
+    }
+
+    Path newTempFile(String key) throws IOException {
+        return Files.createTempFile(dir, key + ".", TEMP_SUFFIX);
+    }
+
+    /** Moves a finished temporary file into the cache under {@code key} and returns its final path. */
+    synchronized Path add(String key, Path temp) throws IOException {
+        Path target = dir.resolve(key);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Long previous = sizes.put(key, Files.size(target));
+        totalBytes += sizes.get(key) - (previous != null ? previous : 0);
+        evict();
+        return target;
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // The entry just added or read is the most recently used, so it is always the last to go
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> oldest = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && sizes.size() > 1 && oldest.hasNext()) {
+            Map.Entry<String, Long> entry = oldest.next();
+            deleteQuietly(dir.resolve(entry.getKey()));
+            totalBytes -= entry.getValue();
+            oldest.remove();
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // retried on the next eviction pass or startup scan
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.shopscript.backend.repository;
+
+/**
+ * Login view of an account from either the admins or the users table.
+ */
+public interface AccountCredentials {
+    Long getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    String getRole();
+}
@@ -0,0 +1,118 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.dto.OrderQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads orders and their lines for export, one row per order line (or per
+ * order without lines), grouped by order. Orders are read in keyset chunks
+ * of {@link #CHUNK_ORDERS}, each one short query, and handed to the caller
+ * after the query has returned its connection. A long export therefore
+ * never holds a connection (or a bulkhead permit) while the response is
+ * written, and memory use does not depend on how many orders match.
+ */
+@Repository
+public class OrderExportRepository {
+    static final int CHUNK_ORDERS = 200;
+
+    private static final String SELECT = "SELECT o.id, o.created_at, o.status, o.total_amount, o.payment_method, "
+            + "o.payment_status, o.shipping_address, u.id AS user_id, u.username, "
+            + "i.id AS item_id, i.product_id, p.name AS product_name, i.quantity, i.selected_size, i.price "
+            + "FROM (SELECT * FROM orders o%s ORDER BY o.created_at, o.id LIMIT ?) o "
+            + "JOIN users u ON u.id = o.user_id "
+            + "LEFT JOIN order_items i ON i.order_id = o.id "
+            + "LEFT JOIN products p ON p.id = i.product_id "
+            + "ORDER BY o.created_at, o.id, i.id";
+
+    public record Row(Long orderId, LocalDateTime createdAt, String status, BigDecimal totalAmount,
+            String paymentMethod, String paymentStatus, String shippingAddress, Long userId, String username,
+            Long itemId, Long productId, String productName, Integer quantity, String selectedSize,
+            BigDecimal price) {
+    }
+
+    private static final RowMapper<Row> ROW = (rs, rowNum) -> new Row(
+            rs.getLong("id"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getString("status"),
+            rs.getBigDecimal("total_amount"),
+            rs.getString("payment_method"),
+            rs.getString("payment_status"),
+            rs.getString("shipping_address"),
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            rs.getObject("item_id", Long.class),
+            rs.getObject("product_id", Long.class),
+            rs.getString("product_name"),
+            rs.getObject("quantity", Integer.class),
+            rs.getString("selected_size"),
+            rs.getBigDecimal("price"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void forEachRow(OrderQuery query, Consumer<Row> consumer) {
+        List<String> filters = new ArrayList<>();
+        List<Object> filterArgs = new ArrayList<>();
+        if (query.getStatus() != null) {
+            filters.add("o.status = ?");
+            filterArgs.add(query.getStatus().name());
+        }
+        if (query.getFrom() != null) {
+            filters.add("o.created_at >= ?");
+            filterArgs.add(Timestamp.valueOf(query.getFrom().atStartOfDay()));
+        }
+        if (query.getTo() != null) {
+            filters.add("o.created_at < ?");
+            filterArgs.add(Timestamp.valueOf(query.getTo().plusDays(1).atStartOfDay()));
+        }
+
+        Row last = null;
+        while (true) {
+            List<String> where = new ArrayList<>(filters);
+            List<Object> args = new ArrayList<>(filterArgs);
+            if (last != null) {
+                after(last, where, args);
+            }
+            args.add(CHUNK_ORDERS);
+            String sql = String.format(SELECT, where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where));
+            List<Row> rows = jdbcTemplate.query(sql, ROW, args.toArray());
+
+            int orders = 0;
+            for (Row row : rows) {
+                if (last == null || !row.orderId().equals(last.orderId())) {
+                    orders++;
+                }
+                consumer.accept(row);
+                last = row;
+            }
+            if (orders < CHUNK_ORDERS) {
+                return;
+            }
+        }
+    }
+
+    // Orders after the last one exported, in (created_at, id) order; rows from before created_at
+    // was always set sort first, as NULL does ascending on MySQL and H2
+    private static void after(Row last, List<String> where, List<Object> args) {
+        if (last.createdAt() == null) {
+            where.add("(o.created_at IS NOT NULL OR o.id > ?)");
+            args.add(last.orderId());
+            return;
+        }
+        where.add("(o.created_at > ? OR (o.created_at = ? AND o.id > ?))");
+        Timestamp createdAt = Timestamp.valueOf(last.createdAt());
+        args.add(createdAt);
+        args.add(createdAt);
+        args.add(last.orderId());
+    }
+}
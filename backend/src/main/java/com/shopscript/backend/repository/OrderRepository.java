@@ -1,9 +1,30 @@
 package com.shopscript.backend.repository;
 
+import com.shopscript.backend.dto.OrderItemSummary;
 import com.shopscript.backend.entity.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserId(Long userId);
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    // Explicit so the filter is on orders.user_id (idx_orders_user_created); the derived
+    // query joined users and filtered on users.id, which left orders to be scanned
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId")
+    List<Order> findByUserId(@Param("userId") Long userId);
+
+    // Status changes lock the order row, so two of them cannot both see it holding stock and release it twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    // Lines of a whole page of orders in one query
+    @Query("SELECT new com.shopscript.backend.dto.OrderItemSummary(i.order.id, i.id, p.id, p.name, p.imageUrl, "
+            + "i.quantity, i.selectedSize, i.price) "
+            + "FROM OrderItem i LEFT JOIN i.product p WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemSummary> findItemSummaries(@Param("orderIds") Collection<Long> orderIds);
 }
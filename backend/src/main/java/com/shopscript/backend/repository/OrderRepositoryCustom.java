@@ -0,0 +1,15 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.dto.OrderSummary;
+import com.shopscript.backend.entity.Order;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+    /**
+     * Newest orders matching the specification as summaries, read in a
+     * single query without loading Order, User or OrderItem entities.
+     * Summary items are left empty.
+     */
+    List<OrderSummary> findSummaries(Specification<Order> spec, int limit);
+}
@@ -0,0 +1,33 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.dto.OrderSummary;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.List;
+
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> findSummaries(Specification<Order> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> cq = cb.createQuery(OrderSummary.class);
+        Root<Order> order = cq.from(Order.class);
+        Join<Order, User> user = order.join("user");
+        cq.select(cb.construct(OrderSummary.class,
+                order.get("id"), user.get("id"), user.get("username"), order.get("totalAmount"),
+                order.get("status"), order.get("createdAt"), order.get("shippingAddress"),
+                order.get("paymentMethod"), order.get("paymentStatus")));
+        cq.where(spec.toPredicate(order, cq, cb));
+        cq.orderBy(cb.desc(order.get("createdAt")), cb.desc(order.get("id")));
+        return entityManager.createQuery(cq).setMaxResults(limit).getResultList();
+    }
+}
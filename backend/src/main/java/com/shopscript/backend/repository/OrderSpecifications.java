@@ -0,0 +1,51 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.dto.OrderQuery;
+import com.shopscript.backend.entity.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria building blocks for the paged order listings. Orders are always
+ * listed newest first, by (createdAt, id) descending.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /** Filters by owner (when userId is not null), status and creation date. */
+    public static Specification<Order> matching(Long userId, OrderQuery query) {
+        return (root, cq, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), userId));
+            }
+            if (query.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), query.getStatus()));
+            }
+            if (query.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), query.getFrom().atStartOfDay()));
+            }
+            if (query.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), query.getTo().plusDays(1).atStartOfDay()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /** Restricts the result to orders strictly older than the given position. */
+    public static Specification<Order> before(LocalDateTime lastCreatedAt, Long lastId) {
+        return (root, cq, cb) -> {
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            Path<Long> id = root.get("id");
+            return cb.or(cb.lessThan(createdAt, lastCreatedAt),
+                    cb.and(cb.equal(createdAt, lastCreatedAt), cb.lessThan(id, lastId)));
+        };
+    }
+}
@@ -2,8 +2,56 @@ package com.shopscript.backend.repository;
 
 import com.shopscript.backend.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.List;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByNameContainingIgnoreCase(String name);
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    String APPROVED_REVIEWS = "FROM reviews r WHERE r.product_id = p.id AND r.is_approved = TRUE";
+
+    // Bulk UPDATEs bypass @Version, so each one bumps the version and timestamp itself
+    String TOUCH = "version = version + 1, last_modified = CURRENT_TIMESTAMP";
+
+    // Conditional decrement: succeeds (returns 1) only if enough stock is left.
+    // A null stock means the product is not stock-tracked and always succeeds.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, "
+            + "p.version = p.version + 1, p.lastModified = LOCAL DATETIME "
+            + "WHERE p.id = :id AND p.deleted = false AND (p.stock IS NULL OR p.stock >= :quantity)")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, "
+            + "p.version = p.version + 1, p.lastModified = LOCAL DATETIME WHERE p.id = :id AND p.stock IS NOT NULL")
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // A product's variant stock changed: its representation did too
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.version = p.version + 1, p.lastModified = LOCAL DATETIME WHERE p.id = :id")
+    int touch(@Param("id") Long id);
+
+    // Adds (delta 1) or removes (delta -1) one approved review of the given rating
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE products SET rating_count = rating_count + :delta, "
+            + "rating_sum = rating_sum + :delta * :rating, "
+            + "rating_1 = rating_1 + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, "
+            + "rating_2 = rating_2 + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, "
+            + "rating_3 = rating_3 + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, "
+            + "rating_4 = rating_4 + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, "
+            + "rating_5 = rating_5 + CASE WHEN :rating = 5 THEN :delta ELSE 0 END, " + TOUCH + " "
+            + "WHERE id = :id", nativeQuery = true)
+    int addRating(@Param("id") Long id, @Param("rating") int rating, @Param("delta") int delta);
+
+    // Recomputes every product's rating summary from its approved reviews (backfill)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE products p SET "
+            + "rating_count = (SELECT COUNT(*) " + APPROVED_REVIEWS + "), "
+            + "rating_sum = (SELECT COALESCE(SUM(r.rating), 0) " + APPROVED_REVIEWS + "), "
+            + "rating_1 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 1), "
+            + "rating_2 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 2), "
+            + "rating_3 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 3), "
+            + "rating_4 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 4), "
+            + "rating_5 = (SELECT COUNT(*) " + APPROVED_REVIEWS + " AND r.rating = 5), " + TOUCH, nativeQuery = true)
+    int rebuildRatings();
 }
@@ -0,0 +1,90 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.dto.ProductQuery;
+import com.shopscript.backend.entity.Product;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria building blocks for the catalog query. Every predicate here is
+ * evaluated by the database so only the requested page leaves MySQL.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductQuery query) {
+        return (root, cq, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.isFalse(root.get("deleted")));
+            if (query.getCategory() != null && !query.getCategory().isBlank()) {
+                predicates.add(cb.equal(root.get("category"), query.getCategory()));
+            }
+            if (query.getSubcategory() != null && !query.getSubcategory().isBlank()) {
+                predicates.add(cb.equal(root.get("subcategory"), query.getSubcategory()));
+            }
+            if (query.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), query.getMinPrice()));
+            }
+            if (query.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), query.getMaxPrice()));
+            }
+            if (Boolean.TRUE.equals(query.getInStock())) {
+                predicates.add(cb.greaterThan(root.get("stock"), 0));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Restricts the result to rows strictly after the given position in the
+     * ordering produced by {@link #sortOf(ProductQuery.Sort)}.
+     */
+    public static Specification<Product> after(ProductQuery.Sort sort, Object lastValue, Long lastId) {
+        return (root, cq, cb) -> {
+            Path<Long> id = root.get("id");
+            switch (sort) {
+                case PRICE_ASC: {
+                    Path<BigDecimal> price = root.get("price");
+                    BigDecimal value = (BigDecimal) lastValue;
+                    return cb.or(cb.greaterThan(price, value),
+                            cb.and(cb.equal(price, value), cb.greaterThan(id, lastId)));
+                }
+                case PRICE_DESC: {
+                    Path<BigDecimal> price = root.get("price");
+                    BigDecimal value = (BigDecimal) lastValue;
+                    return cb.or(cb.lessThan(price, value),
+                            cb.and(cb.equal(price, value), cb.lessThan(id, lastId)));
+                }
+                case NAME_ASC: {
+                    Path<String> name = root.get("name");
+                    String value = (String) lastValue;
+                    return cb.or(cb.greaterThan(name, value),
+                            cb.and(cb.equal(name, value), cb.greaterThan(id, lastId)));
+                }
+                default:
+                    return cb.lessThan(id, lastId);
+            }
+        };
+    }
+
+    public static Sort sortOf(ProductQuery.Sort sort) {
+        switch (sort) {
+            case PRICE_ASC:
+                return Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+            case PRICE_DESC:
+                return Sort.by(Sort.Order.desc("price"), Sort.Order.desc("id"));
+            case NAME_ASC:
+                return Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id"));
+            default:
+                return Sort.by(Sort.Order.desc("id"));
+        }
+    }
+}
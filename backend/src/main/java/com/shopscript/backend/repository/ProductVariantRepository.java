@@ -0,0 +1,19 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.entity.ProductVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+
+    // Same conditional decrement as ProductRepository.reserveStock, for sizes that track their own stock
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductVariant v SET v.stock = v.stock - :quantity WHERE v.id = :id AND v.stock >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductVariant v SET v.stock = v.stock + :quantity WHERE v.id = :id AND v.stock IS NOT NULL")
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+}
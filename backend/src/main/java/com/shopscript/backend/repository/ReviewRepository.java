@@ -1,11 +1,57 @@
 package com.shopscript.backend.repository;
 
+import com.shopscript.backend.dto.ReviewSummary;
 import com.shopscript.backend.entity.Review;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
+    String SUMMARY = "SELECT new com.shopscript.backend.dto.ReviewSummary(r.id, p.id, p.name, u.username, "
+            + "r.rating, r.comment, r.isApproved) FROM Review r JOIN r.product p JOIN r.user u ";
+
+    /** A review whose approval is about to flip, as seen under a row lock. */
+    interface ModerationTarget {
+        Long getProductId();
+
+        Integer getRating();
+    }
+
     List<Review> findByProductIdAndIsApprovedTrue(Long productId);
 
-    List<Review> findByIsApprovedFalse();
+    List<Review> findByIsApprovedFalseAndRejectedFalse();
+
+    // Served by idx_reviews_product_approved_id
+    @Query(SUMMARY + "WHERE r.product.id = :productId AND r.isApproved = true AND r.id < :beforeId "
+            + "ORDER BY r.id DESC")
+    List<ReviewSummary> findApprovedPage(@Param("productId") Long productId, @Param("beforeId") long beforeId,
+            Limit limit);
+
+    // Served by idx_reviews_approved_rejected_id
+    @Query(SUMMARY + "WHERE r.isApproved = false AND r.rejected = false AND r.id > :afterId ORDER BY r.id")
+    List<ReviewSummary> findPendingPage(@Param("afterId") long afterId, Limit limit);
+
+    // Single approvals lock the row too, so two of them cannot both count the same flip
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.id = :id")
+    Optional<Review> findByIdForUpdate(@Param("id") Long id);
+
+    // Locks the rows whose approval flips, so the rating deltas and the UPDATE agree
+    @Query(value = "SELECT product_id AS productId, rating FROM reviews "
+            + "WHERE id IN (:ids) AND is_approved <> :approved FOR UPDATE", nativeQuery = true)
+    List<ModerationTarget> lockForModeration(@Param("ids") Collection<Long> ids,
+            @Param("approved") boolean approved);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Review r SET r.isApproved = :approved, r.rejected = :rejected WHERE r.id IN :ids "
+            + "AND (r.isApproved <> :approved OR r.rejected <> :rejected)")
+    int moderate(@Param("ids") Collection<Long> ids, @Param("approved") boolean approved,
+            @Param("rejected") boolean rejected);
 }
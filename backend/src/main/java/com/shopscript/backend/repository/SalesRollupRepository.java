@@ -0,0 +1,62 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.entity.SalesRollup;
+import com.shopscript.backend.entity.SalesRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollupId> {
+
+    /** Row of a from-scratch aggregation over orders, shaped like a rollup row. */
+    interface Totals {
+        LocalDate getSalesDay();
+
+        String getCategory();
+
+        String getStatus();
+
+        Number getRevenue();
+
+        Number getOrderCount();
+
+        Number getUnits();
+    }
+
+    List<SalesRollup> findByIdSalesDayBetween(LocalDate from, LocalDate to);
+
+    // Atomic increment, so concurrent orders on the same day never lose an update
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollups (sales_day, category, status, revenue, order_count, units) "
+            + "VALUES (:day, :category, :status, :revenue, :orders, :units) "
+            + "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), "
+            + "order_count = order_count + VALUES(order_count), units = units + VALUES(units)",
+            nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("category") String category, @Param("status") String status,
+            @Param("revenue") BigDecimal revenue, @Param("orders") long orders, @Param("units") long units);
+
+    @Query(value = "SELECT x.sales_day AS salesDay, '" + SalesRollup.ALL_CATEGORIES + "' AS category, "
+            + "x.status AS status, SUM(x.total_amount) AS revenue, COUNT(*) AS orderCount, "
+            + "SUM(x.units) AS units "
+            + "FROM (SELECT CAST(o.created_at AS DATE) AS sales_day, o.status, o.total_amount, "
+            + "(SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id) AS units "
+            + "FROM orders o WHERE o.created_at IS NOT NULL AND o.status IS NOT NULL) x "
+            + "GROUP BY x.sales_day, x.status", nativeQuery = true)
+    List<Totals> aggregateOrders();
+
+    @Query(value = "SELECT CAST(o.created_at AS DATE) AS salesDay, "
+            + "COALESCE(p.category, '" + SalesRollup.NO_CATEGORY + "') AS category, o.status AS status, "
+            + "COALESCE(SUM(i.price * i.quantity), 0) AS revenue, COUNT(DISTINCT o.id) AS orderCount, "
+            + "COALESCE(SUM(i.quantity), 0) AS units "
+            + "FROM orders o JOIN order_items i ON i.order_id = o.id "
+            + "LEFT JOIN products p ON p.id = i.product_id "
+            + "WHERE o.created_at IS NOT NULL AND o.status IS NOT NULL "
+            + "GROUP BY CAST(o.created_at AS DATE), COALESCE(p.category, '" + SalesRollup.NO_CATEGORY + "'), "
+            + "o.status", nativeQuery = true)
+    List<Totals> aggregateOrderLines();
+}
@@ -4,6 +4,6 @@ import com.shopscript.backend.entity.SiteSetting;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 
-public interface SiteSettingRepository extends JpaRepository<SiteSetting, Long> {
+public interface SiteSettingRepository extends JpaRepository<SiteSetting, Long>, SiteSettingRepositoryCustom {
     Optional<SiteSetting> findBySettingKey(String settingKey);
 }
@@ -0,0 +1,8 @@
+package com.shopscript.backend.repository;
+
+import java.util.Map;
+
+public interface SiteSettingRepositoryCustom {
+    /** Inserts or overwrites every given key in one JDBC batch. */
+    void upsertAll(Map<String, String> settings);
+}
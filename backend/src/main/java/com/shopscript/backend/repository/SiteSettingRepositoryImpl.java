@@ -0,0 +1,23 @@
+package com.shopscript.backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class SiteSettingRepositoryImpl implements SiteSettingRepositoryCustom {
+    private static final String UPSERT = "INSERT INTO site_settings (setting_key, setting_value) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE setting_value = VALUES(setting_value)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(Map<String, String> settings) {
+        List<Object[]> rows = new ArrayList<>(settings.size());
+        settings.forEach((key, value) -> rows.add(new Object[] { key, value }));
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+}
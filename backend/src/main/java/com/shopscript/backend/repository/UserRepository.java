@@ -2,10 +2,20 @@ package com.shopscript.backend.repository;
 
 import com.shopscript.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     Optional<User> findByMobile(String mobile);
+
+    // One round-trip for both tables; an admin wins over a user with the same name
+    @Query(value = "SELECT a.id AS id, a.username AS username, a.password AS password, 'ADMIN' AS role, 0 AS source "
+            + "FROM admins a WHERE a.username = :username "
+            + "UNION ALL "
+            + "SELECT u.id, u.username, u.password, u.role, 1 FROM users u WHERE u.username = :username "
+            + "ORDER BY source LIMIT 1", nativeQuery = true)
+    Optional<AccountCredentials> findCredentialsByUsername(@Param("username") String username);
 }
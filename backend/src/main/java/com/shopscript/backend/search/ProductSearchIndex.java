@@ -0,0 +1,199 @@
+package com.shopscript.backend.search;
+
+import com.shopscript.backend.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over the searchable text of non-deleted
+ * products, ranked with BM25F: each field contributes its term frequency
+ * scaled by a field weight, so a hit in the name outranks the same hit in
+ * the details. All query terms must match (AND). A query term that is
+ * misspelled by one or two edits still matches the closest indexed terms at
+ * a reduced score.
+ */
+@Component
+public class ProductSearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float FUZZY_PENALTY = 0.7f;
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float DETAILS_WEIGHT = 0.5f;
+
+    public record Result(List<Long> productIds, int total) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private final Map<Long, Float> lengths = new HashMap<>();
+    private double totalLength;
+
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+            for (Product product : products) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds, replaces or (for soft-deleted products) drops a product. */
+    public void index(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getId());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Result search(String query, int offset, int limit) {
+        List<String> terms = TextAnalyzer.analyze(query);
+        if (terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            double avgLength = docCount == 0 ? 1 : totalLength / docCount;
+
+            Map<Long, Float> scores = null;
+            for (String term : terms.stream().distinct().toList()) {
+                Map<Long, Float> termScores = scoreTerm(term, docCount, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND semantics: keep only documents matched by every term
+                    Map<Long, Float> merged = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                        Float other = termScores.get(entry.getKey());
+                        if (other != null) {
+                            merged.put(entry.getKey(), entry.getValue() + other);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return new Result(List.of(), 0);
+                }
+            }
+
+            List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            List<Long> ids = new ArrayList<>();
+            for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+                ids.add(ranked.get(i).getKey());
+            }
+            return new Result(ids, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best BM25 score per document for the term or, failing an exact hit, its near misses. */
+    private Map<Long, Float> scoreTerm(String term, int docCount, double avgLength) {
+        Map<Long, Float> scores = new HashMap<>();
+        Map<Long, Float> exact = postings.get(term);
+        if (exact != null) {
+            accumulate(scores, exact, 1.0f, docCount, avgLength);
+            return scores;
+        }
+        int maxEdits = maxEdits(term);
+        if (maxEdits == 0) {
+            return scores;
+        }
+        for (Map.Entry<String, Map<Long, Float>> candidate : postings.entrySet()) {
+            int distance = EditDistance.bounded(term, candidate.getKey(), maxEdits);
+            if (distance <= maxEdits) {
+                float penalty = (float) Math.pow(FUZZY_PENALTY, distance);
+                accumulate(scores, candidate.getValue(), penalty, docCount, avgLength);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Float> scores, Map<Long, Float> posting, float boost, int docCount,
+            double avgLength) {
+        int df = posting.size();
+        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Long, Float> entry : posting.entrySet()) {
+            float tf = entry.getValue();
+            float length = lengths.get(entry.getKey());
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+            float score = (float) (boost * idf * norm);
+            scores.merge(entry.getKey(), score, Math::max);
+        }
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() <= 3) {
+            return 0;
+        }
+        return term.length() <= 7 ? 1 : 2;
+    }
+
+    private void add(Product product) {
+        if (product.isDeleted()) {
+            return;
+        }
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getSubcategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        addField(weights, product.getDetails(), DETAILS_WEIGHT);
+        if (weights.isEmpty()) {
+            return;
+        }
+        float length = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(product.getId(), weights);
+        lengths.put(product.getId(), length);
+        totalLength += length;
+    }
+
+    private void remove(Long id) {
+        Map<String, Float> weights = documents.remove(id);
+        if (weights == null) {
+            return;
+        }
+        for (String term : weights.keySet()) {
+            Map<Long, Float> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengths.remove(id);
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : TextAnalyzer.analyze(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+}
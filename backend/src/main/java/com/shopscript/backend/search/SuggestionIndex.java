@@ -0,0 +1,286 @@
+package com.shopscript.backend.search;
+
+import com.shopscript.backend.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typeahead over product names, categories and subcategories.
+ *
+ * Every phrase is stored once per word it contains, keyed by the normalized
+ * text from that word onwards ("red leather jacket", "leather jacket",
+ * "jacket"), in one sorted array. A prefix lookup is two binary searches
+ * for the matching range, then a best-first walk down a max tree over the
+ * keys' popularity that stops after K distinct phrases, so a short prefix
+ * matching thousands of keys costs O(K log n), not a pass over all of them.
+ * The arrays are immutable and swapped as a unit, and rebuilt only when a
+ * product's own phrases change; counted searches raise the tree in place.
+ */
+@Component
+public class SuggestionIndex {
+    // A tree value packs a phrase's popularity above its index, inverted so that ties go to the first phrase
+    private static final int PHRASE_BITS = 24;
+    private static final long PHRASE_MASK = (1L << PHRASE_BITS) - 1;
+    private static final long NO_KEY = -1;
+
+    private static final class Table {
+        static final Table EMPTY = new Table(new String[0], new int[0], new String[0], new String[0], new int[0],
+                new int[0][]);
+
+        final String[] keys; // sorted
+        final int[] phraseOf; // keys[i] belongs to phrase phraseOf[i]
+        final String[] display;
+        final String[] normalized;
+        final int[] productCounts;
+        final int[][] keysOf; // positions in keys of each phrase
+        final int leaves; // power of two >= keys.length
+        final AtomicLongArray tree; // node i has children 2i and 2i+1; leaf for key k at leaves + k
+
+        Table(String[] keys, int[] phraseOf, String[] display, String[] normalized, int[] productCounts,
+                int[][] keysOf) {
+            this.keys = keys;
+            this.phraseOf = phraseOf;
+            this.display = display;
+            this.normalized = normalized;
+            this.productCounts = productCounts;
+            this.keysOf = keysOf;
+            this.leaves = Integer.highestOneBit(Math.max(1, keys.length - 1)) << 1;
+            this.tree = new AtomicLongArray(2 * leaves);
+        }
+    }
+
+    private static final class Phrase {
+        final String display;
+        int products;
+
+        Phrase(String display) {
+            this.display = display;
+        }
+    }
+
+    private final Map<Long, List<String>> phrasesByProduct = new HashMap<>();
+    private final Map<String, Phrase> phrases = new HashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> searches = new ConcurrentHashMap<>();
+    private volatile Table table = Table.EMPTY;
+
+    public synchronized void rebuild(Collection<Product> products) {
+        phrasesByProduct.clear();
+        phrases.clear();
+        for (Product product : products) {
+            add(product);
+        }
+        table = build();
+    }
+
+    public synchronized void index(Product product) {
+        // Most saves change price, stock or description and leave the phrases as they were
+        List<String> before = phrasesByProduct.getOrDefault(product.getId(), List.of());
+        if (before.equals(new ArrayList<>(phrasesOf(product).keySet()))) {
+            return;
+        }
+        remove(product.getId());
+        add(product);
+        table = build();
+    }
+
+    /** Counts a search for an existing phrase towards its popularity. */
+    public void recordSearch(String query) {
+        String key = TextAnalyzer.normalize(query);
+        Table current = table;
+        int phrase = Arrays.binarySearch(current.normalized, key);
+        if (phrase < 0) {
+            return;
+        }
+        LongAdder searched = searches.computeIfAbsent(key, k -> new LongAdder());
+        searched.increment();
+        long value = rank(current.productCounts[phrase] + searched.sum(), phrase);
+        for (int position : current.keysOf[phrase]) {
+            raise(current, position, value);
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.normalize(prefix);
+        Table current = table;
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int from = lowerBound(current.keys, key);
+        int to = lowerBound(current.keys, key + Character.MAX_VALUE);
+
+        // Nodes by the best rank below them; start from the O(log n) nodes that exactly cover [from, to)
+        PriorityQueue<long[]> nodes = new PriorityQueue<>(Comparator.<long[]>comparingLong(n -> n[0]).reversed());
+        for (int low = from + current.leaves, high = to + current.leaves; low < high; low >>>= 1, high >>>= 1) {
+            if ((low & 1) == 1) {
+                push(current, nodes, low++);
+            }
+            if ((high & 1) == 1) {
+                push(current, nodes, --high);
+            }
+        }
+        List<String> result = new ArrayList<>(Math.min(limit, to - from));
+        Set<Integer> seen = new HashSet<>();
+        while (result.size() < limit && !nodes.isEmpty()) {
+            int node = (int) nodes.poll()[1];
+            if (node >= current.leaves) {
+                int phrase = current.phraseOf[node - current.leaves];
+                if (seen.add(phrase)) { // a phrase can match through two words, e.g. "le" in "leather lemon"
+                    result.add(current.display[phrase]);
+                }
+            } else {
+                push(current, nodes, 2 * node);
+                push(current, nodes, 2 * node + 1);
+            }
+        }
+        return result;
+    }
+
+    private static void push(Table current, PriorityQueue<long[]> nodes, int node) {
+        long best = current.tree.get(node);
+        if (best != NO_KEY) {
+            nodes.add(new long[] { best, node });
+        }
+    }
+
+    private static long rank(long popularity, int phrase) {
+        return popularity << PHRASE_BITS | (PHRASE_MASK - phrase);
+    }
+
+    // Ranks only grow within a table, so each ancestor just keeps the larger value
+    private static void raise(Table current, int position, long value) {
+        for (int node = current.leaves + position; node >= 1; node >>>= 1) {
+            if (current.tree.getAndAccumulate(node, value, Math::max) >= value) {
+                return;
+            }
+        }
+    }
+
+    private long popularity(String normalized, int productCount) {
+        LongAdder searched = searches.get(normalized);
+        return productCount + (searched == null ? 0 : searched.sum());
+    }
+
+    /** The product's normalized phrases, each with the text it is shown as, in field order. */
+    private static Map<String, String> phrasesOf(Product product) {
+        Map<String, String> own = new LinkedHashMap<>();
+        if (product.isDeleted()) {
+            return own;
+        }
+        for (String text : new String[] { product.getName(), product.getCategory(), product.getSubcategory() }) {
+            String key = TextAnalyzer.normalize(text);
+            if (!key.isEmpty()) {
+                own.putIfAbsent(key, text.trim());
+            }
+        }
+        return own;
+    }
+
+    private void add(Product product) {
+        Map<String, String> own = phrasesOf(product);
+        for (Map.Entry<String, String> phrase : own.entrySet()) {
+            phrases.computeIfAbsent(phrase.getKey(), k -> new Phrase(phrase.getValue())).products++;
+        }
+        phrasesByProduct.put(product.getId(), new ArrayList<>(own.keySet()));
+    }
+
+    private void remove(Long productId) {
+        List<String> own = phrasesByProduct.remove(productId);
+        if (own == null) {
+            return;
+        }
+        for (String key : own) {
+            Phrase phrase = phrases.get(key);
+            if (--phrase.products == 0) {
+                phrases.remove(key);
+            }
+        }
+    }
+
+    private Table build() {
+        String[] normalized = phrases.keySet().toArray(new String[0]);
+        Arrays.sort(normalized);
+        if (normalized.length >= PHRASE_MASK) {
+            throw new IllegalStateException("Too many suggestion phrases: " + normalized.length);
+        }
+        String[] display = new String[normalized.length];
+        int[] productCounts = new int[normalized.length];
+        List<String> keys = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int p = 0; p < normalized.length; p++) {
+            Phrase phrase = phrases.get(normalized[p]);
+            display[p] = phrase.display;
+            productCounts[p] = phrase.products;
+            String text = normalized[p];
+            for (int i = 0; i < text.length(); i++) {
+                if (i == 0 || text.charAt(i - 1) == ' ') {
+                    keys.add(text.substring(i));
+                    owners.add(p);
+                }
+            }
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+        String[] sortedKeys = new String[order.length];
+        int[] phraseOf = new int[order.length];
+        int[] keyCounts = new int[normalized.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            phraseOf[i] = owners.get(order[i]);
+            keyCounts[phraseOf[i]]++;
+        }
+        int[][] keysOf = new int[normalized.length][];
+        for (int p = 0; p < normalized.length; p++) {
+            keysOf[p] = new int[keyCounts[p]];
+            keyCounts[p] = 0;
+        }
+        for (int i = 0; i < phraseOf.length; i++) {
+            keysOf[phraseOf[i]][keyCounts[phraseOf[i]]++] = i;
+        }
+
+        Table built = new Table(sortedKeys, phraseOf, display, normalized, productCounts, keysOf);
+        for (int i = 0; i < built.leaves; i++) {
+            long value = NO_KEY;
+            if (i < phraseOf.length) {
+                int p = phraseOf[i];
+                value = rank(popularity(normalized[p], productCounts[p]), p);
+            }
+            built.tree.set(built.leaves + i, value);
+        }
+        for (int node = built.leaves - 1; node >= 1; node--) {
+            built.tree.set(node, Math.max(built.tree.get(2 * node), built.tree.get(2 * node + 1)));
+        }
+        return built;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -16,20 +16,25 @@ import java.io.IOException;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
-    private JwtUtils jwtUtils;
+    private JwtVerifier jwtVerifier;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            JwtVerifier.VerifiedToken token = jwt != null ? jwtVerifier.verify(jwt) : null;
+            if (token != null) {
+                UserDetails userDetails = token.getPrincipal();
+                if (userDetails == null) {
+                    userDetails = loadLegacyPrincipal(token.getUsername());
+                }
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -45,6 +50,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails loadLegacyPrincipal(String username) {
+        UserDetails userDetails = principalCache.get(username);
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(username);
+            principalCache.put(userDetails);
+        }
+        return userDetails;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
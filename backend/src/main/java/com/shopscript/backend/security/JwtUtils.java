@@ -1,62 +1,64 @@
 package com.shopscript.backend.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
-    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
-
     // In a real app, store this in application.properties or environment variables
     private String jwtSecret = System.getenv("JWT_SECRET") != null ? System.getenv("JWT_SECRET")
             : "shopscriptSecretKeyWhichShouldBeVeryLongAndComplexToEnsureSecurity1234567890";
 
     private int jwtExpirationMs = 86400000; // 24 hours
 
+    static final String ROLE_CLAIM = "role";
+    static final String USER_ID_CLAIM = "uid";
+
+    // Derived once; both are immutable and safe to share between threads
+    private final Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
     public String generateJwtToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
+        return generateJwtToken((UserPrincipal) authentication.getPrincipal());
+    }
 
+    public String generateJwtToken(UserPrincipal userPrincipal) {
         return Jwts.builder()
                 .setSubject((userPrincipal.getUsername()))
+                .claim(ROLE_CLAIM, userPrincipal.getRole())
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(
-                Decoders.BASE64.decode(java.util.Base64.getEncoder().encodeToString(jwtSecret.getBytes())));
+    /**
+     * Verifies the signature and expiry and returns the claims in one pass.
+     * Throws {@link JwtException} or {@link IllegalArgumentException} for any
+     * token that should not be trusted.
+     */
+    Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
-
-    public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+    /**
+     * Rebuilds the principal from the signed role and id claims, or returns
+     * null for tokens issued without them.
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        String role = claims.get(ROLE_CLAIM, String.class);
+        Number id = claims.get(USER_ID_CLAIM, Number.class);
+        if (role == null || id == null) {
+            return null;
         }
-
-        return false;
+        return new UserPrincipal(id.longValue(), claims.getSubject(), null, role);
     }
 }
@@ -0,0 +1,141 @@
+package com.shopscript.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Verifies bearer tokens for {@link JwtAuthenticationFilter}.
+ *
+ * Signature, expiry and claims are checked in a single parse. Tokens that
+ * verified recently are remembered in a striped LRU, so a client sending the
+ * same token on every request pays for HMAC and JSON parsing once. Every
+ * lookup, cached or not, is checked against {@link RevokedTokenFilter}.
+ */
+@Component
+public class JwtVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+    private static final int STRIPES = 16;
+    private static final int ENTRIES_PER_STRIPE = 256;
+
+    public static final class VerifiedToken {
+        private final String username;
+        private final UserPrincipal principal; // null for tokens without role/uid claims
+        private final String tokenId;
+        private final long expiresAtMs;
+
+        VerifiedToken(String username, UserPrincipal principal, String tokenId, long expiresAtMs) {
+            this.username = username;
+            this.principal = principal;
+            this.tokenId = tokenId;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public UserPrincipal getPrincipal() {
+            return principal;
+        }
+    }
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private RevokedTokenFilter revokedTokens;
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, VerifiedToken>[] recent = new Map[STRIPES];
+
+    public JwtVerifier() {
+        for (int i = 0; i < STRIPES; i++) {
+            recent[i] = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                    return size() > ENTRIES_PER_STRIPE;
+                }
+            };
+        }
+    }
+
+    /** Returns the verified token, or null if it is invalid, expired or revoked. */
+    public VerifiedToken verify(String token) {
+        Map<String, VerifiedToken> stripe = stripe(token);
+        VerifiedToken verified;
+        synchronized (stripe) {
+            verified = stripe.get(token);
+        }
+
+        if (verified == null) {
+            verified = parse(token);
+            if (verified == null) {
+                return null;
+            }
+            synchronized (stripe) {
+                stripe.put(token, verified);
+            }
+        } else if (verified.expiresAtMs < System.currentTimeMillis()) {
+            synchronized (stripe) {
+                stripe.remove(token);
+            }
+            return null;
+        }
+
+        return revokedTokens.isRevoked(verified.tokenId) ? null : verified;
+    }
+
+    /** Revokes a token until it expires. Returns false if it was not valid to begin with. */
+    public boolean revoke(String token) {
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            return false;
+        }
+        revokedTokens.revoke(verified.tokenId, verified.expiresAtMs);
+        Map<String, VerifiedToken> stripe = stripe(token);
+        synchronized (stripe) {
+            stripe.remove(token);
+        }
+        return true;
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = jwtUtils.parseClaims(token);
+            // Tokens issued before ids were added are identified by their signature
+            String tokenId = claims.getId() != null ? claims.getId() : token.substring(token.lastIndexOf('.') + 1);
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            return new VerifiedToken(claims.getSubject(), jwtUtils.getPrincipalFromClaims(claims), tokenId,
+                    expiresAt);
+        } catch (MalformedJwtException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("JWT token is expired: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SignatureException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT token rejected: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private Map<String, VerifiedToken> stripe(String token) {
+        return recent[(token.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+}
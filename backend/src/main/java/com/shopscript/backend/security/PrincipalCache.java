@@ -0,0 +1,55 @@
+package com.shopscript.backend.security;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU of loaded accounts with a time-to-live, for the requests whose
+ * token does not carry the claims needed to skip the database (tokens
+ * issued before the role and id claims existed).
+ */
+@Component
+public class PrincipalCache {
+    private static final int MAX_ENTRIES = 1024;
+    private static final long TTL_MS = 5 * 60 * 1000; // 5 minutes
+
+    private static final class Entry {
+        final UserDetails principal;
+        final long expiresAt;
+
+        Entry(UserDetails principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public synchronized UserDetails get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(username);
+            return null;
+        }
+        return entry.principal;
+    }
+
+    public synchronized void put(UserDetails principal) {
+        entries.put(principal.getUsername(), new Entry(principal, System.currentTimeMillis() + TTL_MS));
+    }
+
+    public synchronized void evict(String username) {
+        entries.remove(username);
+    }
+}
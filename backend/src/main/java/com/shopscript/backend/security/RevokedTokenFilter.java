@@ -0,0 +1,88 @@
+package com.shopscript.backend.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of revoked token ids fronted by a Bloom filter. Nearly every request
+ * carries a token that was never revoked, and for those the check is a few
+ * bit probes with no allocation and no lock. Only a Bloom hit (a revoked
+ * token or a rare false positive) consults the exact map.
+ *
+ * Entries are kept until the token would have expired anyway. Expired
+ * entries are purged, and the Bloom filter rebuilt without them, at most
+ * once per {@link #PURGE_INTERVAL_MS}.
+ */
+@Component
+public class RevokedTokenFilter {
+    private static final int BITS = 1 << 20; // 128 KiB, ~1% false positives at 100k live revocations
+    private static final int HASHES = 7;
+    private static final long PURGE_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>(); // id -> token expiry
+    private volatile AtomicLongArray bloom = new AtomicLongArray(BITS / 64);
+    private volatile long lastPurge = System.currentTimeMillis();
+
+    public boolean isRevoked(String tokenId) {
+        return mightContain(bloom, tokenId) && revoked.containsKey(tokenId);
+    }
+
+    public void revoke(String tokenId, long expiresAtMs) {
+        revoked.put(tokenId, expiresAtMs);
+        add(bloom, tokenId);
+        purgeIfDue();
+    }
+
+    private synchronized void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurge = now;
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        AtomicLongArray rebuilt = new AtomicLongArray(BITS / 64);
+        for (String tokenId : revoked.keySet()) {
+            add(rebuilt, tokenId);
+        }
+        bloom = rebuilt;
+        // An id revoked while we were copying may have missed the new filter
+        for (String tokenId : revoked.keySet()) {
+            add(rebuilt, tokenId);
+        }
+    }
+
+    private static boolean mightContain(AtomicLongArray bits, String tokenId) {
+        int h1 = tokenId.hashCode();
+        int h2 = mix(h1);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BITS;
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void add(AtomicLongArray bits, String tokenId) {
+        int h1 = tokenId.hashCode();
+        int h2 = mix(h1);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % BITS;
+            long mask = 1L << bit;
+            bits.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+        }
+    }
+
+    /** Second, independent-enough hash for double hashing (murmur3 finalizer). */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+}
@@ -1,8 +1,10 @@
 package com.shopscript.backend.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -38,6 +40,8 @@ public class SecurityConfig {
 
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Let login tell "not registered" apart from "wrong password" without a second lookup
+        authProvider.setHideUserNotFoundExceptions(false);
 
         return authProvider;
     }
@@ -62,8 +66,10 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "x-auth-token"));
-        configuration.setExposedHeaders(Arrays.asList("x-auth-token"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "x-auth-token",
+                HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE));
+        // Clients need the ETag to revalidate reads and to send If-Match on product updates
+        configuration.setExposedHeaders(Arrays.asList("x-auth-token", HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -76,7 +82,11 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/users/**").permitAll()
+                // Async dispatches finish a request that was authorized when it started (streamed
+                // exports); error dispatches carry the status already chosen for it
+                .authorizeHttpRequests(auth -> auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR)
+                        .permitAll()
+                        .requestMatchers("/api/users/**").permitAll()
                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/products/**").permitAll() // Allow
                                                                                                                   // viewing
                                                                                                                   // products
@@ -84,7 +94,16 @@ public class SecurityConfig {
                         .requestMatchers("/uploads/**").permitAll() // Allow serving uploaded images
                         .requestMatchers("/api/uploads/**").authenticated() // Require auth for uploading
                         .requestMatchers("/api/test/**").permitAll()
+                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/orders/page", "/api/orders/export")
+                        .hasRole("ADMIN")
+                        .requestMatchers("/api/analytics/**", "/api/reviews/ratings/**", "/api/reviews/pending/**",
+                                "/api/reviews/approval", "/api/reviews/*/approval")
+                        .hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .requestMatchers("/error").permitAll() // Let 4xx/5xx responses reach the client as-is
                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/settings/**").permitAll()
+                        .requestMatchers("/api/settings/**").hasRole("ADMIN")
                         .anyRequest().authenticated());
 
         http.authenticationProvider(authenticationProvider());
@@ -0,0 +1,139 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.datasource.ReadReplicaRoutingDataSource;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Copy-on-write product cache in front of {@link ProductRepository}.
+ *
+ * Reads go to the current {@link CatalogSnapshot} without locking. Writes
+ * publish a new snapshot through a CAS loop. Every snapshot built, published
+ * or not, takes a fresh version from one counter, so two snapshots with
+ * different contents can never share an ETag. Values loaded from the database
+ * are only published if no other change landed while the query was running,
+ * so a slow read can never overwrite a newer write. Concurrent misses for
+ * the same id (or for the full catalog) share one database load. Loads read
+ * the primary, never a read replica: a stale row cached here would be served
+ * until the product next changes, not just until the replica catches up.
+ */
+@Component
+public class CatalogCache {
+    private static final Long FULL_LOAD = -1L;
+
+    private final ProductRepository productRepository;
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    private final AtomicLong versions = new AtomicLong(CatalogSnapshot.EMPTY.getVersion());
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<Product>>> productLoads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<CatalogSnapshot>> fullLoads = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rebuilds;
+
+    public CatalogCache(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.hits = meterRegistry.counter("catalog.cache.hits");
+        this.misses = meterRegistry.counter("catalog.cache.misses");
+        this.rebuilds = meterRegistry.counter("catalog.cache.rebuilds");
+        Gauge.builder("catalog.cache.version", current, ref -> ref.get().getVersion()).register(meterRegistry);
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot.isComplete()) {
+            hits.increment();
+            return snapshot;
+        }
+        misses.increment();
+        return singleFlight(fullLoads, FULL_LOAD, this::rebuild);
+    }
+
+    public Optional<Product> get(Long id) {
+        CatalogSnapshot snapshot = current.get();
+        Product cached = snapshot.get(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return singleFlight(productLoads, id, () -> load(id));
+    }
+
+    /** Publishes a product that was just written to the database. */
+    public void put(Product product) {
+        current.updateAndGet(snapshot -> snapshot.with(versions.incrementAndGet(), product));
+    }
+
+    /** Re-reads a product whose row was changed by a bulk UPDATE rather than an entity save. */
+    public void reload(Long id) {
+        ReadReplicaRoutingDataSource.onPrimary(() -> productRepository.findById(id)).ifPresentOrElse(this::put,
+                () -> current.updateAndGet(snapshot -> snapshot.without(versions.incrementAndGet(), id)));
+    }
+
+    /** Drops every cached product, e.g. after a bulk UPDATE across the whole table. */
+    public void invalidateAll() {
+        current.updateAndGet(snapshot -> CatalogSnapshot.empty(versions.incrementAndGet()));
+    }
+
+    private CatalogSnapshot rebuild() {
+        CatalogSnapshot before = current.get();
+        List<Product> products = ReadReplicaRoutingDataSource.onPrimary(productRepository::findAll);
+        rebuilds.increment();
+        CatalogSnapshot rebuilt = CatalogSnapshot.full(versions.incrementAndGet(), products);
+        // If a write landed meanwhile our rows may predate it: serve them to this
+        // caller only and let the next reader rebuild again. The version is ours
+        // alone, so the write's snapshot keeps a tag of its own
+        current.compareAndSet(before, rebuilt);
+        return rebuilt;
+    }
+
+    private Optional<Product> load(Long id) {
+        CatalogSnapshot before = current.get();
+        Optional<Product> product = ReadReplicaRoutingDataSource.onPrimary(() -> productRepository.findById(id));
+        product.ifPresent(p -> current.compareAndSet(before, before.with(versions.incrementAndGet(), p)));
+        return product;
+    }
+
+    /** Runs {@code loader} once per key no matter how many threads miss at the same time. */
+    private static <T> T singleFlight(ConcurrentHashMap<Long, CompletableFuture<T>> inFlight, Long key,
+            Supplier<T> loader) {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<T> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            mine.complete(loader.get());
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return join(mine);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
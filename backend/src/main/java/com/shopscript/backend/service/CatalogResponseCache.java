@@ -0,0 +1,125 @@
+package com.shopscript.backend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shopscript.backend.entity.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full product listing encoded once per catalog version.
+ *
+ * Serializing every active product (descriptions and details included) is
+ * the bulk of the cost of {@code GET /api/products}, and the result only
+ * changes when the catalog does. The JSON and a gzip copy of it are built on
+ * the first request for a new {@link CatalogSnapshot} and then served as-is
+ * until the next version is published. Every order changes stock and so
+ * publishes a new version; gzip therefore runs at the default level, and no
+ * lock is held while encoding: readers of the new version wait for the one
+ * encoding in flight, readers of any other version are not held up at all.
+ */
+@Component
+public class CatalogResponseCache {
+
+    public static final class Encoded {
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        Encoded(long version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+
+    private final ObjectWriter writer;
+    private final Counter encodings;
+    private final AtomicReference<Encoded> current = new AtomicReference<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<Encoded>> inFlight = new ConcurrentHashMap<>();
+
+    public CatalogResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writerFor(new TypeReference<List<Product>>() {
+        });
+        this.encodings = meterRegistry.counter("catalog.response.encodings");
+    }
+
+    /** Encoded active products of {@code snapshot}; concurrent callers for a new version share one encoding. */
+    public Encoded encoded(CatalogSnapshot snapshot) {
+        long version = snapshot.getVersion();
+        Encoded encoded = current.get();
+        if (encoded != null && encoded.version == version) {
+            return encoded;
+        }
+        CompletableFuture<Encoded> mine = new CompletableFuture<>();
+        CompletableFuture<Encoded> running = inFlight.putIfAbsent(version, mine);
+        if (running != null) {
+            return join(running);
+        }
+        try {
+            encoded = current.get();
+            if (encoded == null || encoded.version != version) {
+                encoded = encode(snapshot);
+                Encoded published = encoded;
+                // Never replace a newer version with an older one a slow caller was still holding
+                current.updateAndGet(latest -> latest == null || latest.version < published.version
+                        ? published : latest);
+            }
+            mine.complete(encoded);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(version, mine);
+        }
+        return join(mine);
+    }
+
+    private Encoded encode(CatalogSnapshot snapshot) {
+        try {
+            byte[] json = writer.writeValueAsBytes(snapshot.getActiveProducts());
+            encodings.increment();
+            return new Encoded(snapshot.getVersion(), json, gzip(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static Encoded join(CompletableFuture<Encoded> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
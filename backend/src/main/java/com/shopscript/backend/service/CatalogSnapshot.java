@@ -0,0 +1,102 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.entity.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable view of the catalog at one version. A new instance is published
+ * for every change; readers never lock and never observe a half-applied
+ * write. Products held here are shared between threads and must be treated
+ * as read-only.
+ */
+public final class CatalogSnapshot {
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, Collections.emptyMap(), false);
+
+    // Versions restart with the process, so tags carry its start time to stay unique
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private final long version;
+    private final Map<Long, Product> byId;
+    private final List<Product> active;
+    private final boolean complete;
+    private final LocalDateTime lastModified;
+
+    private CatalogSnapshot(long version, Map<Long, Product> byId, boolean complete) {
+        this.version = version;
+        this.byId = byId;
+        this.complete = complete;
+        List<Product> visible = new ArrayList<>();
+        LocalDateTime newest = null;
+        for (Product product : byId.values()) {
+            if (!product.isDeleted()) {
+                visible.add(product);
+            }
+            LocalDateTime modified = product.getLastModified();
+            if (modified != null && (newest == null || modified.isAfter(newest))) {
+                newest = modified;
+            }
+        }
+        this.active = Collections.unmodifiableList(visible);
+        this.lastModified = newest;
+    }
+
+    /** Snapshot holding nothing, so every read goes back to the database. */
+    static CatalogSnapshot empty(long version) {
+        return new CatalogSnapshot(version, Collections.emptyMap(), false);
+    }
+
+    /** Snapshot holding every product in the table. */
+    static CatalogSnapshot full(long version, List<Product> products) {
+        Map<Long, Product> byId = new TreeMap<>();
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+        return new CatalogSnapshot(version, Collections.unmodifiableMap(byId), true);
+    }
+
+    CatalogSnapshot with(long version, Product product) {
+        Map<Long, Product> byId = new TreeMap<>(this.byId);
+        byId.put(product.getId(), product);
+        return new CatalogSnapshot(version, Collections.unmodifiableMap(byId), complete);
+    }
+
+    CatalogSnapshot without(long version, Long id) {
+        Map<Long, Product> byId = new TreeMap<>(this.byId);
+        byId.remove(id);
+        // Dropping an entry means the snapshot no longer mirrors the whole table
+        return new CatalogSnapshot(version, Collections.unmodifiableMap(byId), false);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** Strong validator for any listing computed from the catalog at this version. */
+    public String getEtag() {
+        return "\"c" + EPOCH + "-" + version + "\"";
+    }
+
+    /** Latest write to any cached product, deletions included; null if none is known. */
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Product get(Long id) {
+        return byId.get(id);
+    }
+
+    /** Non-deleted products in id order. */
+    public List<Product> getActiveProducts() {
+        return active;
+    }
+}
@@ -0,0 +1,18 @@
+package com.shopscript.backend.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+    private final Long productId;
+
+    public InsufficientStockException(Long productId) {
+        super("Not enough stock for product " + productId);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
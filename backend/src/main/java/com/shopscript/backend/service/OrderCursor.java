@@ -0,0 +1,45 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.dto.OrderSummary;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for order listings: creation time and id of the last
+ * order on a page.
+ */
+final class OrderCursor {
+    private static final char SEPARATOR = '\n';
+
+    final LocalDateTime lastCreatedAt;
+    final Long lastId;
+
+    private OrderCursor(LocalDateTime lastCreatedAt, Long lastId) {
+        this.lastCreatedAt = lastCreatedAt;
+        this.lastId = lastId;
+    }
+
+    static String encode(OrderSummary last) {
+        String raw = last.getCreatedAt() + String.valueOf(SEPARATOR) + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+}
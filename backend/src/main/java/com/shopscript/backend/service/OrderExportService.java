@@ -0,0 +1,181 @@
+package com.shopscript.backend.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscript.backend.dto.OrderQuery;
+import com.shopscript.backend.repository.OrderExportRepository;
+import com.shopscript.backend.repository.OrderExportRepository.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes order exports to the response one chunk of orders at a time, as
+ * {@link OrderExportRepository} reads them; memory use does not depend on
+ * the size of the export.
+ */
+@Service
+public class OrderExportService {
+    // Flush every this many orders so the client sees progress on long exports
+    private static final int FLUSH_EVERY = 200;
+
+    private static final String[] CSV_HEADER = { "order_id", "created_at", "status", "total_amount",
+            "payment_method", "payment_status", "shipping_address", "user_id", "username", "item_id",
+            "product_id", "product_name", "quantity", "selected_size", "price" };
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** One JSON object per line, one line per order, with its lines nested under "items". */
+    public void writeNdjson(OrderQuery query, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        long[] current = { -1, 0 }; // order id being written, orders written
+        try {
+            orderExportRepository.forEachRow(query, row -> {
+                try {
+                    if (row.orderId() != current[0]) {
+                        if (current[0] != -1) {
+                            endOrder(json);
+                            if (++current[1] % FLUSH_EVERY == 0) {
+                                json.flush();
+                            }
+                        }
+                        current[0] = row.orderId();
+                        startOrder(json, row);
+                    }
+                    if (row.itemId() != null) {
+                        writeItem(json, row);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (current[0] != -1) {
+            endOrder(json);
+        }
+        json.flush();
+    }
+
+    /** One CSV record per order line; order columns repeat on every line of the order. */
+    public void writeCsv(OrderQuery query, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", CSV_HEADER));
+        writer.write("\r\n");
+        long[] rows = { 0 };
+        try {
+            orderExportRepository.forEachRow(query, row -> {
+                try {
+                    writeCsvRecord(writer, row);
+                    if (++rows[0] % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void startOrder(JsonGenerator json, Row row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.orderId());
+        json.writeStringField("createdAt", row.createdAt() == null ? null : row.createdAt().toString());
+        json.writeStringField("status", row.status());
+        json.writeNumberField("totalAmount", row.totalAmount());
+        json.writeStringField("paymentMethod", row.paymentMethod());
+        json.writeStringField("paymentStatus", row.paymentStatus());
+        json.writeStringField("shippingAddress", row.shippingAddress());
+        json.writeObjectFieldStart("user");
+        json.writeNumberField("id", row.userId());
+        json.writeStringField("username", row.username());
+        json.writeEndObject();
+        json.writeArrayFieldStart("items");
+    }
+
+    private static void writeItem(JsonGenerator json, Row row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.itemId());
+        if (row.productId() != null) {
+            json.writeNumberField("productId", row.productId());
+        } else {
+            json.writeNullField("productId");
+        }
+        json.writeStringField("productName", row.productName());
+        if (row.quantity() != null) {
+            json.writeNumberField("quantity", row.quantity());
+        } else {
+            json.writeNullField("quantity");
+        }
+        json.writeStringField("selectedSize", row.selectedSize());
+        json.writeNumberField("price", row.price());
+        json.writeEndObject();
+    }
+
+    private static void endOrder(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeCsvRecord(Writer writer, Row row) throws IOException {
+        Object[] values = { row.orderId(), row.createdAt(), row.status(), row.totalAmount(), row.paymentMethod(),
+                row.paymentStatus(), row.shippingAddress(), row.userId(), row.username(), row.itemId(),
+                row.productId(), row.productName(), row.quantity(), row.selectedSize(), row.price() };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i] instanceof BigDecimal decimal
+                        ? decimal.toPlainString()
+                        : values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting; a leading formula character is neutralised so spreadsheets do not evaluate it
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 && !isNumber(value)) {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
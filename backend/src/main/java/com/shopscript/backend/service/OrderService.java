@@ -1,45 +1,177 @@
 package com.shopscript.backend.service;
 
+import com.shopscript.backend.dto.OrderItemSummary;
+import com.shopscript.backend.dto.OrderPage;
+import com.shopscript.backend.dto.OrderQuery;
+import com.shopscript.backend.dto.OrderSummary;
 import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.ProductVariant;
 import com.shopscript.backend.entity.User;
+import com.shopscript.backend.events.OrderEvent;
+import com.shopscript.backend.events.OrderEventBus;
 import com.shopscript.backend.repository.OrderRepository;
+import com.shopscript.backend.repository.OrderSpecifications;
+import com.shopscript.backend.repository.ProductRepository;
 import com.shopscript.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class OrderService {
+    // Orders in these states no longer hold stock
+    static final Set<Order.Status> RELEASED_STATUSES = EnumSet.of(Order.Status.REJECTED,
+            Order.Status.CANCELLED);
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private OrderEventBus orderEventBus;
+
+    @Transactional
     public Order createOrder(Long userId, Order order) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         order.setUser(user);
 
         if (order.getItems() != null) {
-            for (com.shopscript.backend.entity.OrderItem item : order.getItems()) {
+            for (OrderItem item : order.getItems()) {
                 item.setOrder(order);
             }
+            priceLines(order);
         }
 
-        return orderRepository.save(order);
+        if (order.getStatus() == null || !RELEASED_STATUSES.contains(order.getStatus())) {
+            // All or nothing: a failed line rolls back the whole order
+            stockReservationService.reserve(order);
+        }
+        Order saved = orderRepository.save(order);
+        orderEventBus.publishAfterCommit(OrderEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Sets each line's price from the catalog (the size's own price, else the
+     * product's) and the order total from the lines, so neither is taken on
+     * trust from the client. All products come from one query and each line
+     * then resolves its product and variant from memory.
+     */
+    private void priceLines(Order order) {
+        Set<Long> ids = new TreeSet<>();
+        for (OrderItem item : order.getItems()) {
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order item without a product");
+            }
+            ids.add(item.getProduct().getId());
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : order.getItems()) {
+            Product product = products.get(item.getProduct().getId());
+            if (product == null || product.isDeleted()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Product " + item.getProduct().getId() + " is not available");
+            }
+            ProductVariant variant = null;
+            String size = item.getSelectedSize();
+            if (size != null && !size.isBlank()) {
+                variant = product.findVariant(size.trim());
+                if (variant == null && !product.getVariants().isEmpty()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Product " + product.getId() + " has no size " + size);
+                }
+            }
+            item.setProduct(product);
+            item.setVariant(variant);
+            item.setPrice(variant != null && variant.getPrice() != null ? variant.getPrice() : product.getPrice());
+            if (item.getQuantity() != null) {
+                total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            }
+        }
+        order.setTotalAmount(total);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getUserOrders(Long userId) {
         return orderRepository.findByUserId(userId);
     }
 
+    /**
+     * One page of order summaries, newest first, for one user or (with a null
+     * userId) for everyone. Costs two queries regardless of page size: one for
+     * the orders and one for all of their lines.
+     */
+    @Transactional(readOnly = true)
+    public OrderPage findOrders(Long userId, OrderQuery query) {
+        int limit = query.effectiveLimit();
+        Specification<Order> spec = OrderSpecifications.matching(userId, query);
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            OrderCursor cursor = OrderCursor.decode(query.getCursor());
+            spec = spec.and(OrderSpecifications.before(cursor.lastCreatedAt, cursor.lastId));
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<OrderSummary> rows = orderRepository.findSummaries(spec, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<OrderSummary> orders = hasMore ? rows.subList(0, limit) : rows;
+        if (!orders.isEmpty()) {
+            Map<Long, OrderSummary> byId = new HashMap<>();
+            for (OrderSummary order : orders) {
+                byId.put(order.getId(), order);
+            }
+            for (OrderItemSummary item : orderRepository.findItemSummaries(byId.keySet())) {
+                byId.get(item.getOrderId()).getItems().add(item);
+            }
+        }
+        return new OrderPage(orders, hasMore ? OrderCursor.encode(orders.get(limit - 1)) : null);
+    }
+
+    @Transactional
     public Order updateOrderStatus(Long id, Order.Status status) {
-        Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
+        Order order = orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        boolean heldStock = !RELEASED_STATUSES.contains(order.getStatus());
+        boolean holdsStock = !RELEASED_STATUSES.contains(status);
+        if (heldStock && !holdsStock) {
+            stockReservationService.release(order);
+        } else if (!heldStock && holdsStock) {
+            stockReservationService.reserve(order);
+        }
+        Order.Status previous = order.getStatus();
         order.setStatus(status);
+        if (previous != status) {
+            orderEventBus.publishAfterCommit(OrderEvent.statusChanged(order, previous, status));
+        }
         return orderRepository.save(order);
     }
 }
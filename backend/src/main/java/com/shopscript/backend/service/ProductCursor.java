@@ -0,0 +1,70 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.dto.ProductQuery;
+import com.shopscript.backend.entity.Product;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key and id of the last product on a page,
+ * tagged with the sort order so a cursor cannot be replayed against another
+ * ordering.
+ */
+final class ProductCursor {
+    private static final char SEPARATOR = '\n';
+
+    final ProductQuery.Sort sort;
+    final Object lastValue;
+    final Long lastId;
+
+    private ProductCursor(ProductQuery.Sort sort, Object lastValue, Long lastId) {
+        this.sort = sort;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    static String encode(ProductQuery.Sort sort, Product last) {
+        String value;
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                value = last.getPrice().toPlainString();
+                break;
+            case NAME_ASC:
+                value = last.getName();
+                break;
+            default:
+                value = "";
+        }
+        String raw = sort.name() + SEPARATOR + last.getId() + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProductCursor decode(ProductQuery.Sort sort, String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            if (first < 0 || second < 0 || !sort.name().equals(raw.substring(0, first))) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            Long lastId = Long.valueOf(raw.substring(first + 1, second));
+            String value = raw.substring(second + 1);
+            switch (sort) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    return new ProductCursor(sort, new BigDecimal(value), lastId);
+                case NAME_ASC:
+                    return new ProductCursor(sort, value, lastId);
+                default:
+                    return new ProductCursor(sort, null, lastId);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+}
@@ -1,32 +1,120 @@
 package com.shopscript.backend.service;
 
+import com.shopscript.backend.dto.ProductPage;
+import com.shopscript.backend.dto.ProductQuery;
+import com.shopscript.backend.dto.ProductSearchPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.ProductVariant;
 import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.ProductSpecifications;
+import com.shopscript.backend.search.ProductSearchIndex;
+import com.shopscript.backend.search.SuggestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private CatalogResponseCache catalogResponses;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        List<Product> products = catalogCache.snapshot().getActiveProducts();
+        searchIndex.rebuild(products);
+        suggestionIndex.rebuild(products);
+    }
+
     public List<Product> getAllProducts() {
-        return productRepository.findAll().stream()
-                .filter(p -> !p.isDeleted())
-                .toList();
+        return catalogCache.snapshot().getActiveProducts();
+    }
+
+    /** Current catalog version; its validators cover every listing served from it. */
+    public CatalogSnapshot catalogSnapshot() {
+        return catalogCache.snapshot();
+    }
+
+    /** The active products of {@code snapshot} as ready-to-send JSON and gzip bytes. */
+    public CatalogResponseCache.Encoded encodedProducts(CatalogSnapshot snapshot) {
+        return catalogResponses.encoded(snapshot);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPage findProducts(ProductQuery query) {
+        ProductQuery.Sort sort = query.getSort() != null ? query.getSort() : ProductQuery.Sort.NEWEST;
+        int limit = query.effectiveLimit();
+
+        Specification<Product> spec = ProductSpecifications.matching(query);
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            ProductCursor cursor = ProductCursor.decode(sort, query.getCursor());
+            spec = spec.and(ProductSpecifications.after(sort, cursor.lastValue, cursor.lastId));
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<Product> rows = productRepository.findBy(spec, q -> q
+                .sortBy(ProductSpecifications.sortOf(sort))
+                .limit(limit + 1)
+                .all());
+        if (rows.size() <= limit) {
+            return new ProductPage(rows, null);
+        }
+        List<Product> items = rows.subList(0, limit);
+        return new ProductPage(items, ProductCursor.encode(sort, items.get(limit - 1)));
     }
 
     public Product getProductById(Long id) {
-        return productRepository.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+        return catalogCache.get(id).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        List<ProductVariant> requested = new ArrayList<>(product.getVariants());
+        product.setVariants(new ArrayList<>());
+        applyVariants(product, requested, product);
+        return publish(productRepository.saveAndFlush(product));
     }
 
-    public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
+    /**
+     * Overwrites a product's editable fields. With an {@code expectedVersion}
+     * the write only goes through if nobody changed the product since the
+     * caller read that version.
+     */
+    @Transactional
+    public Product updateProduct(Long id, Product productDetails, Long expectedVersion) {
+        // Cached instances are shared with readers, so edit a freshly loaded copy
+        Product product = findForUpdate(id, expectedVersion);
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
@@ -35,20 +123,146 @@ public class ProductService {
         product.setCategory(productDetails.getCategory());
         product.setSubcategory(productDetails.getSubcategory());
         product.setDetails(productDetails.getDetails());
-        product.setSizes(productDetails.getSizes());
-        product.setSizePrices(productDetails.getSizePrices());
-        return productRepository.save(product);
+        applyVariants(product, productDetails.getVariants(), productDetails);
+        return publish(save(product, expectedVersion));
     }
 
-    public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+    @Transactional
+    public void deleteProduct(Long id, Long expectedVersion) {
+        Product product = findForUpdate(id, expectedVersion);
         product.setDeleted(true);
-        productRepository.save(product);
+        publish(save(product, expectedVersion));
+    }
+
+    /**
+     * Brings {@code product}'s variants in line with a request: its
+     * {@code variants} if given, otherwise the legacy {@code sizes} and
+     * {@code sizePrices} fields. Sizes that stay keep their row (and stock);
+     * a request with neither leaves the variants alone.
+     */
+    private void applyVariants(Product product, List<ProductVariant> requested, Product request) {
+        Map<String, ProductVariant> wanted = new LinkedHashMap<>();
+        if (requested != null && !requested.isEmpty()) {
+            for (ProductVariant variant : requested) {
+                String size = variant.getSize() != null ? variant.getSize().trim() : "";
+                if (!size.isEmpty()) {
+                    wanted.putIfAbsent(size, variant);
+                }
+            }
+        } else if (request.getRequestedSizes() != null) {
+            Map<String, BigDecimal> prices = parseSizePrices(request.getRequestedSizePrices());
+            for (String part : request.getRequestedSizes().split(",")) {
+                String size = part.trim();
+                if (!size.isEmpty() && !wanted.containsKey(size)) {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setSize(size);
+                    variant.setPrice(prices.get(size));
+                    wanted.put(size, variant);
+                }
+            }
+        } else {
+            return;
+        }
+
+        boolean changed = product.getVariants().removeIf(v -> !wanted.containsKey(v.getSize()));
+        int order = 0;
+        for (Map.Entry<String, ProductVariant> entry : wanted.entrySet()) {
+            ProductVariant source = entry.getValue();
+            // A zero price has always meant "same as the product" in the admin form
+            BigDecimal price = source.getPrice() != null && source.getPrice().signum() > 0 ? source.getPrice() : null;
+            ProductVariant variant = product.findVariant(entry.getKey());
+            if (variant == null) {
+                variant = new ProductVariant();
+                variant.setProduct(product);
+                variant.setSize(entry.getKey());
+                variant.setStock(source.getStock());
+                product.getVariants().add(variant);
+                changed = true;
+            } else if (requested != null && !requested.isEmpty() && !Objects.equals(variant.getStock(), source.getStock())) {
+                variant.setStock(source.getStock());
+                changed = true;
+            }
+            if (variant.getPrice() == null ? price != null : price == null || variant.getPrice().compareTo(price) != 0) {
+                variant.setPrice(price);
+                changed = true;
+            }
+            if (variant.getSortOrder() != order) {
+                variant.setSortOrder(order);
+                changed = true;
+            }
+            order++;
+        }
+        if (changed && product.getId() != null) {
+            product.setLastModified(LocalDateTime.now()); // dirties the product so its version moves with its variants
+        }
+    }
+
+    private Map<String, BigDecimal> parseSizePrices(String json) {
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        if (json == null || json.isBlank()) {
+            return prices;
+        }
+        try {
+            Map<String, Object> raw = objectMapper.readValue(json, objectMapper.getTypeFactory()
+                    .constructMapType(LinkedHashMap.class, String.class, Object.class));
+            for (Map.Entry<String, Object> entry : raw.entrySet()) {
+                if (entry.getValue() != null && !entry.getValue().toString().isBlank()) {
+                    prices.put(entry.getKey().trim(), new BigDecimal(entry.getValue().toString().trim()));
+                }
+            }
+        } catch (JsonProcessingException | NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sizePrices must be a JSON object of numbers", e);
+        }
+        return prices;
+    }
+
+    /** Makes the write visible to cached reads and to search once it commits. */
+    private Product publish(Product saved) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogCache.put(saved);
+                searchIndex.index(saved);
+                suggestionIndex.index(saved);
+            }
+        });
+        return saved;
+    }
+
+    private Product findForUpdate(Long id, Long expectedVersion) {
+        Product product = productRepository.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
+        if (expectedVersion != null && product.getVersion() != expectedVersion) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Product was modified since it was read");
+        }
+        return product;
+    }
+
+    // The row can still change between our read and the UPDATE; the version check in its WHERE clause catches that.
+    // Flushing here makes that failure surface now rather than at commit.
+    private Product save(Product product, Long expectedVersion) {
+        try {
+            return productRepository.saveAndFlush(product);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            HttpStatus status = expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            throw new ResponseStatusException(status, "Product was modified concurrently", e);
+        }
+    }
+
+    public ProductSearchPage searchProducts(String query, int page, int size) {
+        // page * size can overflow int; any offset past Integer.MAX_VALUE is past the last hit anyway
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        ProductSearchIndex.Result result = searchIndex.search(query, offset, size);
+        if (page == 0 && result.total() > 0) {
+            suggestionIndex.recordSearch(query);
+        }
+        List<Product> items = new ArrayList<>(result.productIds().size());
+        for (Long id : result.productIds()) {
+            catalogCache.get(id).ifPresent(items::add);
+        }
+        return new ProductSearchPage(items, result.total(), page, size);
     }
 
-    public List<Product> searchProducts(String query) {
-        return productRepository.findByNameContainingIgnoreCase(query).stream()
-                .filter(p -> !p.isDeleted())
-                .toList();
+    public List<String> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, limit);
     }
 }
@@ -1,5 +1,8 @@
 package com.shopscript.backend.service;
 
+import com.shopscript.backend.dto.ReviewModerationRequest;
+import com.shopscript.backend.dto.ReviewPage;
+import com.shopscript.backend.dto.ReviewSummary;
 import com.shopscript.backend.entity.Product;
 import com.shopscript.backend.entity.Review;
 import com.shopscript.backend.entity.User;
@@ -7,11 +10,25 @@ import com.shopscript.backend.repository.ProductRepository;
 import com.shopscript.backend.repository.ReviewRepository;
 import com.shopscript.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 public class ReviewService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_MODERATION_BATCH = 500;
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -21,27 +38,148 @@ public class ReviewService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Transactional
     public Review addReview(Long productId, Long userId, Review review) {
+        if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rating must be between 1 and 5");
+        }
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         review.setProduct(product);
         review.setUser(user);
         review.setApproved(false); // Default to not approved
+        // Pending reviews do not count towards the rating summary until approved
         return reviewRepository.save(review);
     }
 
+    @Transactional(readOnly = true)
     public List<Review> getProductReviews(Long productId) {
         return reviewRepository.findByProductIdAndIsApprovedTrue(productId);
     }
 
+    @Transactional(readOnly = true)
     public List<Review> getPendingReviews() {
-        return reviewRepository.findByIsApprovedFalse();
+        return reviewRepository.findByIsApprovedFalseAndRejectedFalse();
     }
 
+    /** Approved reviews of a product, newest first. */
+    @Transactional(readOnly = true)
+    public ReviewPage getProductReviewPage(Long productId, String cursor, Integer limit) {
+        int size = effectiveLimit(limit);
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : parseCursor(cursor);
+        return page(reviewRepository.findApprovedPage(productId, beforeId, Limit.of(size + 1)), size);
+    }
+
+    /** Reviews awaiting moderation, oldest first. */
+    @Transactional(readOnly = true)
+    public ReviewPage getPendingReviewPage(String cursor, Integer limit) {
+        int size = effectiveLimit(limit);
+        long afterId = cursor == null || cursor.isBlank() ? 0 : parseCursor(cursor);
+        return page(reviewRepository.findPendingPage(afterId, Limit.of(size + 1)), size);
+    }
+
+    @Transactional
     public Review approveReview(Long id, boolean approved) {
-        Review review = reviewRepository.findById(id).orElseThrow(() -> new RuntimeException("Review not found"));
+        // Locked like moderate(): a concurrent approval waits and then sees this one's result
+        Review review = reviewRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Review not found"));
+        boolean wasApproved = review.isApproved();
         review.setApproved(approved);
-        return reviewRepository.save(review);
+        review.setRejected(!approved);
+        Review saved = reviewRepository.save(review);
+        if (wasApproved != approved && saved.getRating() != null) {
+            Long productId = saved.getProduct().getId();
+            productRepository.addRating(productId, saved.getRating(), approved ? 1 : -1);
+            reloadAfterCommit(productId);
+        }
+        return saved;
+    }
+
+    /**
+     * Approves or rejects many reviews with one set-based UPDATE. Rating
+     * summaries change only for reviews whose approval actually flips; those
+     * rows are locked first so the deltas match what the UPDATE changes.
+     * Returns the number of reviews changed.
+     */
+    @Transactional
+    public int moderate(ReviewModerationRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No review ids given");
+        }
+        Set<Long> ids = new TreeSet<>(request.getIds());
+        if (ids.size() > MAX_MODERATION_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_MODERATION_BATCH + " reviews per request");
+        }
+        boolean approved = request.isApproved();
+
+        // product id -> number of flipped reviews per star (index 1..5)
+        Map<Long, int[]> flipped = new TreeMap<>();
+        for (ReviewRepository.ModerationTarget target : reviewRepository.lockForModeration(ids, approved)) {
+            Integer rating = target.getRating();
+            if (rating != null && rating >= 1 && rating <= 5) {
+                flipped.computeIfAbsent(target.getProductId(), id -> new int[6])[rating]++;
+            }
+        }
+        int changed = reviewRepository.moderate(ids, approved, !approved);
+
+        int sign = approved ? 1 : -1;
+        for (Map.Entry<Long, int[]> product : flipped.entrySet()) {
+            for (int rating = 1; rating <= 5; rating++) {
+                int count = product.getValue()[rating];
+                if (count > 0) {
+                    productRepository.addRating(product.getKey(), rating, sign * count);
+                }
+            }
+            reloadAfterCommit(product.getKey());
+        }
+        return changed;
+    }
+
+    /** Recomputes every product's rating summary from the reviews table. */
+    @Transactional
+    public int rebuildRatingSummaries() {
+        int updated = productRepository.rebuildRatings();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogCache.invalidateAll();
+            }
+        });
+        return updated;
+    }
+
+    private static int effectiveLimit(Integer limit) {
+        return limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    // Rows were fetched with one extra to learn whether another page exists
+    private static ReviewPage page(List<ReviewSummary> rows, int size) {
+        if (rows.size() <= size) {
+            return new ReviewPage(rows, null);
+        }
+        List<ReviewSummary> items = rows.subList(0, size);
+        return new ReviewPage(items, String.valueOf(items.get(size - 1).getId()));
+    }
+
+    private void reloadAfterCommit(Long productId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catalogCache.reload(productId);
+            }
+        });
     }
 }
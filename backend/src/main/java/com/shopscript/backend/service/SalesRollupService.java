@@ -0,0 +1,236 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.dto.SalesFigures;
+import com.shopscript.backend.dto.SalesReport;
+import com.shopscript.backend.dto.SalesRollupCheck;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.SalesRollup;
+import com.shopscript.backend.entity.SalesRollupId;
+import com.shopscript.backend.events.OrderEvent;
+import com.shopscript.backend.events.OrderEventBus;
+import com.shopscript.backend.events.OrderEventConsumer;
+import com.shopscript.backend.repository.SalesRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the sales_rollups table in step with orders.
+ *
+ * Every order contributes to one "_all" row and one row per category it has
+ * lines in, all under the day it was placed and its current status. Placing
+ * an order adds its contribution; a status change moves it from the old
+ * status to the new one. Updates arrive as {@link OrderEvent}s after the
+ * order commits, so the rollup trails checkout by a moment. Reports read
+ * only the rollup rows in the requested range, so their cost does not grow
+ * with the number of orders.
+ *
+ * Categories are taken from the products as they are now, both here and in
+ * {@link #rebuild()}. Recategorising a product therefore shows up as a
+ * mismatch in {@link #verify()} until the next rebuild.
+ */
+@Service
+public class SalesRollupService implements OrderEventConsumer {
+    private static final Comparator<SalesRollupId> KEY_ORDER = Comparator.comparing(SalesRollupId::getSalesDay)
+            .thenComparing(SalesRollupId::getCategory)
+            .thenComparing(SalesRollupId::getStatus);
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    @Lazy // the bus is built with this service as one of its consumers
+    private OrderEventBus orderEventBus;
+
+    @Override
+    public String getName() {
+        return "sales-rollup";
+    }
+
+    /**
+     * Applies a batch of order events. Deltas for the same cell are summed
+     * first, so a batch costs one upsert per touched cell, in key order.
+     */
+    @Override
+    @Transactional
+    public void onEvents(List<OrderEvent> events) {
+        Map<SalesRollupId, SalesFigures> deltas = new TreeMap<>(KEY_ORDER);
+        for (OrderEvent event : events) {
+            if (event.getCreatedAt() == null || event.getStatus() == null) {
+                continue;
+            }
+            if (event.getType() == OrderEvent.Type.CREATED) {
+                accumulate(deltas, event, event.getStatus(), 1);
+            } else if (event.getPreviousStatus() != event.getStatus()) {
+                if (event.getPreviousStatus() != null) {
+                    accumulate(deltas, event, event.getPreviousStatus(), -1);
+                }
+                accumulate(deltas, event, event.getStatus(), 1);
+            }
+        }
+        for (Map.Entry<SalesRollupId, SalesFigures> delta : deltas.entrySet()) {
+            SalesRollupId key = delta.getKey();
+            SalesFigures figures = delta.getValue();
+            if (figures.getRevenue().signum() == 0 && figures.getOrders() == 0 && figures.getUnits() == 0) {
+                continue; // e.g. PENDING -> APPROVED -> PENDING within one batch
+            }
+            salesRollupRepository.add(key.getSalesDay(), key.getCategory(), key.getStatus(), figures.getRevenue(),
+                    figures.getOrders(), figures.getUnits());
+        }
+    }
+
+    public SalesReport report(LocalDate from, LocalDate to) {
+        SalesReport report = new SalesReport();
+        report.setFrom(from);
+        report.setTo(to);
+        for (SalesRollup row : salesRollupRepository.findByIdSalesDayBetween(from, to)) {
+            SalesRollupId id = row.getId();
+            boolean all = SalesRollup.ALL_CATEGORIES.equals(id.getCategory());
+            if (all) {
+                report.getByStatus().computeIfAbsent(id.getStatus(), s -> new SalesFigures())
+                        .add(row.getRevenue(), row.getOrderCount(), row.getUnits());
+            }
+            if (OrderService.RELEASED_STATUSES.contains(Order.Status.valueOf(id.getStatus()))) {
+                continue;
+            }
+            if (all) {
+                report.getTotal().add(row.getRevenue(), row.getOrderCount(), row.getUnits());
+                report.getByDay().computeIfAbsent(id.getSalesDay(), d -> new SalesFigures())
+                        .add(row.getRevenue(), row.getOrderCount(), row.getUnits());
+            } else {
+                report.getByCategory().computeIfAbsent(id.getCategory(), c -> new SalesFigures())
+                        .add(row.getRevenue(), row.getOrderCount(), row.getUnits());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Recomputes every row from the orders table. Events still waiting in the
+     * outbox are discarded, since the orders already include them. Orders
+     * placed while this runs may be counted twice or not at all, so run it
+     * when the shop is quiet.
+     */
+    @Transactional
+    public int rebuild() {
+        orderEventBus.discardPending(this);
+        salesRollupRepository.deleteAllInBatch();
+        List<SalesRollup> rows = new ArrayList<>();
+        for (Map.Entry<SalesRollupId, SalesFigures> cell : recompute().entrySet()) {
+            SalesRollup row = new SalesRollup();
+            row.setId(cell.getKey());
+            row.setRevenue(cell.getValue().getRevenue());
+            row.setOrderCount(cell.getValue().getOrders());
+            row.setUnits(cell.getValue().getUnits());
+            rows.add(row);
+        }
+        salesRollupRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * Compares the incrementally maintained rows with a from-scratch
+     * recomputation. Orders whose events are still queued show up as mismatches.
+     */
+    @Transactional(readOnly = true)
+    public SalesRollupCheck verify() {
+        Map<SalesRollupId, SalesFigures> expected = recompute();
+        Map<SalesRollupId, SalesFigures> stored = new HashMap<>();
+        for (SalesRollup row : salesRollupRepository.findAll()) {
+            SalesFigures figures = new SalesFigures();
+            figures.add(row.getRevenue(), row.getOrderCount(), row.getUnits());
+            stored.put(row.getId(), figures);
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        Set<SalesRollupId> keys = new HashSet<>(expected.keySet());
+        keys.addAll(stored.keySet());
+        for (SalesRollupId key : keys) {
+            SalesFigures want = expected.getOrDefault(key, new SalesFigures());
+            SalesFigures have = stored.getOrDefault(key, new SalesFigures());
+            if (!sameFigures(want, have)) {
+                mismatches.add(key.getSalesDay() + "/" + key.getCategory() + "/" + key.getStatus() + ": stored "
+                        + describe(have) + " expected " + describe(want));
+            }
+        }
+        mismatches.sort(null);
+        return new SalesRollupCheck(mismatches.isEmpty(), keys.size(), mismatches);
+    }
+
+    private Map<SalesRollupId, SalesFigures> recompute() {
+        Map<SalesRollupId, SalesFigures> cells = new TreeMap<>(KEY_ORDER);
+        List<SalesRollupRepository.Totals> totals = new ArrayList<>(salesRollupRepository.aggregateOrders());
+        totals.addAll(salesRollupRepository.aggregateOrderLines());
+        for (SalesRollupRepository.Totals row : totals) {
+            SalesFigures figures = new SalesFigures();
+            figures.add(new BigDecimal(row.getRevenue().toString()), row.getOrderCount().longValue(),
+                    row.getUnits().longValue());
+            cells.put(new SalesRollupId(row.getSalesDay(), row.getCategory(), row.getStatus()), figures);
+        }
+        return cells;
+    }
+
+    /** Adds the order's figures for the "_all" row and each of its categories, signed, under a status. */
+    private void accumulate(Map<SalesRollupId, SalesFigures> deltas, OrderEvent event, Order.Status status,
+            int sign) {
+        LocalDate day = event.getCreatedAt().toLocalDate();
+        Map<String, SalesFigures> categories = new HashMap<>();
+        long units = 0;
+        for (OrderEvent.Line line : event.getLines()) {
+            long quantity = line.quantity() != null ? line.quantity() : 0;
+            BigDecimal revenue = line.price() != null && line.quantity() != null
+                    ? line.price().multiply(BigDecimal.valueOf(line.quantity()))
+                    : BigDecimal.ZERO;
+            SalesFigures category = categories.computeIfAbsent(categoryOf(line.productId()), c -> {
+                SalesFigures figures = new SalesFigures();
+                figures.setOrders(1);
+                return figures;
+            });
+            category.add(revenue, 0, quantity);
+            units += quantity;
+        }
+        SalesFigures all = new SalesFigures();
+        all.add(event.getTotalAmount() != null ? event.getTotalAmount() : BigDecimal.ZERO, 1, units);
+        categories.put(SalesRollup.ALL_CATEGORIES, all);
+
+        BigDecimal factor = BigDecimal.valueOf(sign);
+        for (Map.Entry<String, SalesFigures> cell : categories.entrySet()) {
+            SalesFigures figures = cell.getValue();
+            deltas.computeIfAbsent(new SalesRollupId(day, cell.getKey(), status.name()), k -> new SalesFigures())
+                    .add(figures.getRevenue().multiply(factor), sign * figures.getOrders(),
+                            sign * figures.getUnits());
+        }
+    }
+
+    private String categoryOf(Long productId) {
+        String category = productId == null ? null
+                : catalogCache.get(productId).map(Product::getCategory).orElse(null);
+        return category != null ? category : SalesRollup.NO_CATEGORY;
+    }
+
+    private static boolean sameFigures(SalesFigures a, SalesFigures b) {
+        return a.getRevenue().compareTo(b.getRevenue()) == 0 && a.getOrders() == b.getOrders()
+                && a.getUnits() == b.getUnits();
+    }
+
+    private static String describe(SalesFigures figures) {
+        return figures.getRevenue().toPlainString() + "/" + figures.getOrders() + " orders/"
+                + figures.getUnits() + " units";
+    }
+}
@@ -0,0 +1,128 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.entity.SiteSetting;
+import com.shopscript.backend.repository.SiteSettingRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Site settings served from an immutable in-memory snapshot. The table is
+ * read once at startup and again after each committed update; readers only
+ * dereference a volatile field.
+ */
+@Service
+public class SiteSettingsService {
+
+    /** Settings at one point in time with a strong ETag derived from their content. */
+    public static final class Snapshot {
+        private final Map<String, String> values;
+        private final String etag;
+
+        Snapshot(Map<String, String> values) {
+            TreeMap<String, String> sorted = new TreeMap<>(values);
+            this.values = Collections.unmodifiableMap(sorted);
+            this.etag = "\"" + digest(sorted) + "\"";
+        }
+
+        public Map<String, String> getValues() {
+            return values;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    @Autowired
+    private SiteSettingRepository siteSettingRepository;
+
+    private volatile Snapshot snapshot;
+
+    // A lock rather than synchronized: a virtual thread blocked on JDBC inside a monitor pins its carrier
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    @PostConstruct
+    public void init() {
+        if (siteSettingRepository.count() == 0) {
+            siteSettingRepository.upsertAll(Map.of(
+                    "hero_title", "Find Your Next Obsession",
+                    "hero_subtitle",
+                    "Shop the latest trends in fashion, electronics, and home essentials. unbeatable prices and premium quality.",
+                    "hero_image",
+                    "https://images.unsplash.com/photo-1472851294608-415522f97817?auto=format&fit=crop&q=80&w=1920"));
+        }
+        reload();
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /** Writes every key in one batch; the new snapshot is published once the transaction commits. */
+    @Transactional
+    public void update(Map<String, String> settings) {
+        if (settings.isEmpty()) {
+            return;
+        }
+        siteSettingRepository.upsertAll(settings);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    // Re-reading (instead of merging into the old map) keeps concurrent updates in commit order
+    private void reload() {
+        reloadLock.lock();
+        try {
+            Map<String, String> values = new TreeMap<>();
+            for (SiteSetting setting : siteSettingRepository.findAll()) {
+                values.put(setting.getSettingKey(), setting.getSettingValue());
+            }
+            snapshot = new Snapshot(values);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static String digest(Map<String, String> sorted) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                // Length-prefixed so that no two different maps hash the same input
+                update(sha256, entry.getKey());
+                update(sha256, entry.getValue());
+            }
+            return HexFormat.of().formatHex(sha256.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length });
+        digest.update(bytes);
+    }
+}
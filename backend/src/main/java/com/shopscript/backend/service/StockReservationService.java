@@ -0,0 +1,141 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.ProductVariant;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reserves and releases stock for whole orders: a size's own
+ * {@code ProductVariant.stock} where it tracks one, else {@code Product.stock}.
+ * Reservation records on each line which of the two it debited, and release
+ * credits that row, whatever has happened to the product's sizes since.
+ *
+ * Each product or variant is decremented with a single conditional UPDATE, so the
+ * check and the decrement are one atomic statement and concurrent buyers
+ * only hold the row lock for that statement. Reservation runs inside the
+ * caller's transaction: if any line cannot be satisfied the exception rolls
+ * back every decrement already made for the order. Products are always
+ * locked in ascending id order, all of them before any variant (again in id
+ * order), so two multi-line orders cannot deadlock.
+ */
+@Service
+public class StockReservationService {
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Order order) {
+        Lines lines = linesOf(order, true);
+        for (Long productId : lines.touchedProducts()) {
+            Integer quantity = lines.products.get(productId);
+            if (quantity == null) {
+                productRepository.touch(productId); // its variant stock is part of its representation
+            } else if (productRepository.reserveStock(productId, quantity) == 0) {
+                throw new InsufficientStockException(productId);
+            }
+        }
+        for (Map.Entry<Long, Integer> line : lines.variants.entrySet()) {
+            if (variantRepository.reserveStock(line.getKey(), line.getValue()) == 0) {
+                throw new InsufficientStockException(lines.variantProducts.get(line.getKey()));
+            }
+        }
+        refreshAfterCommit(lines);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Order order) {
+        Lines lines = linesOf(order, false);
+        for (Long productId : lines.touchedProducts()) {
+            Integer quantity = lines.products.get(productId);
+            if (quantity == null) {
+                productRepository.touch(productId);
+            } else {
+                productRepository.releaseStock(productId, quantity);
+            }
+        }
+        for (Map.Entry<Long, Integer> line : lines.variants.entrySet()) {
+            variantRepository.releaseStock(line.getKey(), line.getValue());
+        }
+        refreshAfterCommit(lines);
+    }
+
+    /** Quantities per product and per variant, each in ascending id order. */
+    private static final class Lines {
+        final Map<Long, Integer> products = new TreeMap<>();
+        final Map<Long, Integer> variants = new TreeMap<>();
+        final Map<Long, Long> variantProducts = new TreeMap<>();
+
+        Set<Long> touchedProducts() {
+            Set<Long> ids = new TreeSet<>(products.keySet());
+            ids.addAll(variantProducts.values());
+            return ids;
+        }
+    }
+
+    /**
+     * Groups the order's lines by the stock row they draw on. When reserving
+     * that is decided now, from the variant priced onto the line, and recorded
+     * on the line; when releasing it is the recorded row.
+     */
+    private Lines linesOf(Order order, boolean reserving) {
+        Lines lines = new Lines();
+        if (order.getItems() == null) {
+            return lines;
+        }
+        for (OrderItem item : order.getItems()) {
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order item without a product");
+            }
+            int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+            if (quantity <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order item quantity must be positive");
+            }
+            Long productId = item.getProduct().getId();
+            ProductVariant variant = item.getVariant();
+            if (reserving) {
+                item.setVariantStock(variant != null && variant.getStock() != null);
+            }
+            if (!item.isVariantStock()) {
+                lines.products.merge(productId, quantity, Integer::sum);
+            } else if (variant != null) {
+                lines.variants.merge(variant.getId(), quantity, Integer::sum);
+                lines.variantProducts.put(variant.getId(), productId);
+            }
+            // else the size and its stock were removed after the order took from it: nothing to credit
+        }
+        return lines;
+    }
+
+    private void refreshAfterCommit(Lines lines) {
+        Set<Long> productIds = lines.touchedProducts();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Long productId : productIds) {
+                    catalogCache.reload(productId);
+                }
+            }
+        });
+    }
+}
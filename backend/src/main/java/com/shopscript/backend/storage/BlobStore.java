@@ -0,0 +1,33 @@
+package com.shopscript.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Storage for uploaded files, addressed by content: a blob's name is the
+ * SHA-256 of its bytes plus its extension, so storing the same file twice
+ * keeps one copy and returns the same name. Names never change meaning, which
+ * is what lets them be cached forever.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams {@code content} into the store and returns the blob's name.
+     *
+     * @throws BlobTooLargeException if the content exceeds the configured size cap
+     * @throws RejectedExecutionException if too many uploads are already in progress
+     */
+    String put(InputStream content, String extension) throws IOException;
+
+    /**
+     * True if {@code name} is a content hash, i.e. it can never refer to
+     * different bytes. Files imported under their legacy names are not.
+     */
+    boolean isContentAddressed(String name);
+
+    /** Local file holding the named blob, or empty if there is none (or the name is not a valid blob name). */
+    Optional<Path> find(String name);
+}
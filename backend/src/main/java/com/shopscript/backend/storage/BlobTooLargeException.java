@@ -0,0 +1,16 @@
+package com.shopscript.backend.storage;
+
+import java.io.IOException;
+
+public class BlobTooLargeException extends IOException {
+    private final long maxBytes;
+
+    public BlobTooLargeException(long maxBytes) {
+        super("Upload exceeds the limit of " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
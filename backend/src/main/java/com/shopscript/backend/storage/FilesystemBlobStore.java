@@ -0,0 +1,239 @@
+package com.shopscript.backend.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * {@link BlobStore} in a directory on local disk, outside the classpath so it
+ * works the same from a packaged jar.
+ *
+ * An upload is copied channel to channel into a temporary file in the same
+ * directory while its SHA-256 is computed and its size checked. It is then
+ * renamed to its hash, or dropped if that blob already exists. At most
+ * {@code max-concurrent} uploads are written at once.
+ *
+ * Files from the old {@code static/uploads} location keep their UUID names
+ * and are copied in on startup, so existing image URLs keep working.
+ */
+@Component
+public class FilesystemBlobStore implements BlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(FilesystemBlobStore.class);
+
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*(\\.[A-Za-z0-9]+)?");
+    private static final Pattern CONTENT_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,10})?");
+    private static final Pattern VALID_EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    private static final long CHUNK = 1 << 20;
+
+    private final Path dir;
+    private final Path legacyDir;
+    private final long maxBytes;
+    private final Semaphore writers;
+    private final long writerWaitMs;
+
+    private final Counter stored;
+    private final Counter deduplicated;
+
+    public FilesystemBlobStore(MeterRegistry meterRegistry,
+            @Value("${app.uploads.dir:${user.home}/shopscript/uploads}") String dir,
+            @Value("${app.uploads.legacy-dir:src/main/resources/static/uploads}") String legacyDir,
+            @Value("${app.uploads.max-bytes:10485760}") long maxBytes,
+            @Value("${app.uploads.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.uploads.writer-wait-ms:2000}") long writerWaitMs) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.legacyDir = Paths.get(legacyDir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.writers = new Semaphore(maxConcurrent);
+        this.writerWaitMs = writerWaitMs;
+        this.stored = meterRegistry.counter("uploads.stored");
+        this.deduplicated = meterRegistry.counter("uploads.deduplicated");
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path leftover : files.filter(f -> f.getFileName().toString().startsWith(".upload-")).toList()) {
+                Files.deleteIfExists(leftover); // interrupted by a crash mid-upload
+            }
+        }
+        importLegacyUploads();
+    }
+
+    @Override
+    public String put(InputStream content, String extension) throws IOException {
+        String ext = extension == null ? "" : extension.toLowerCase(Locale.ROOT);
+        if (!ext.isEmpty() && !VALID_EXTENSION.matcher(ext).matches()) {
+            throw new IllegalArgumentException("Invalid file extension: " + extension);
+        }
+        acquireWriter();
+        Path temp = Files.createTempFile(dir, ".upload-", ".tmp");
+        try {
+            HashingChannel source = new HashingChannel(Channels.newChannel(content), maxBytes);
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long copied;
+                while ((copied = target.transferFrom(source, position, CHUNK)) > 0) {
+                    position += copied;
+                }
+            }
+
+            String name = source.hexDigest() + (ext.isEmpty() ? "" : "." + ext);
+            Path blob = dir.resolve(name);
+            if (Files.exists(blob)) {
+                deduplicated.increment();
+                return name;
+            }
+            try {
+                makeReadable(temp); // temp files are created owner-only
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // The same content was stored concurrently; its copy is as good as ours
+                deduplicated.increment();
+                return name;
+            }
+            stored.increment();
+            return name;
+        } finally {
+            Files.deleteIfExists(temp);
+            writers.release();
+        }
+    }
+
+    @Override
+    public boolean isContentAddressed(String name) {
+        return name != null && CONTENT_NAME.matcher(name).matches();
+    }
+
+    @Override
+    public Optional<Path> find(String name) {
+        if (name == null || !VALID_NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path blob = dir.resolve(name);
+        return Files.isRegularFile(blob) ? Optional.of(blob) : Optional.empty();
+    }
+
+    private static void makeReadable(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system; the default permissions apply
+        }
+    }
+
+    private void acquireWriter() {
+        try {
+            if (!writers.tryAcquire(writerWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many uploads in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to store an upload", e);
+        }
+    }
+
+    /** Copies files from the pre-blob-store upload locations that are not here yet. */
+    private void importLegacyUploads() throws IOException {
+        int imported = 0;
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:static/uploads/*")) {
+            String name = resource.getFilename();
+            if (name != null && VALID_NAME.matcher(name).matches() && !Files.exists(dir.resolve(name))) {
+                try (InputStream in = resource.getInputStream()) {
+                    Files.copy(in, dir.resolve(name));
+                    imported++;
+                }
+            }
+        }
+        if (Files.isDirectory(legacyDir)) {
+            try (Stream<Path> files = Files.list(legacyDir)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    String name = file.getFileName().toString();
+                    if (VALID_NAME.matcher(name).matches() && !Files.exists(dir.resolve(name))) {
+                        Files.copy(file, dir.resolve(name));
+                        imported++;
+                    }
+                }
+            }
+        }
+        if (imported > 0) {
+            logger.info("Imported {} legacy uploads into {}", imported, dir);
+        }
+    }
+
+    /** Passes bytes through while hashing and counting them, failing once the cap is exceeded. */
+    private static final class HashingChannel implements ReadableByteChannel {
+        private final ReadableByteChannel source;
+        private final MessageDigest digest;
+        private final long maxBytes;
+        private long total;
+
+        HashingChannel(ReadableByteChannel source, long maxBytes) {
+            this.source = source;
+            this.maxBytes = maxBytes;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int start = dst.position();
+            int read = source.read(dst);
+            if (read > 0) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new BlobTooLargeException(maxBytes);
+                }
+                digest.update(dst.duplicate().position(start).limit(start + read));
+            }
+            return read;
+        }
+
+        String hexDigest() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return source.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.shopscript.backend.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped contents of the most recently served small files, so that
+ * product thumbnails that every page shows are written straight from the
+ * page cache without opening the file on each request. Larger files are
+ * left to sendfile.
+ *
+ * The cache is bounded by total mapped bytes and evicts least recently used
+ * first. Only use it for files whose contents never change under the same
+ * path (blobs and their variants); an evicted mapping is released when it
+ * is garbage collected.
+ */
+@Component
+public class MappedFileCache {
+    private final long maxFileBytes;
+    private final long maxTotalBytes;
+    private final LinkedHashMap<Path, MappedByteBuffer> mapped = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public MappedFileCache(MeterRegistry meterRegistry,
+            @Value("${app.uploads.mmap.max-file-bytes:262144}") long maxFileBytes,
+            @Value("${app.uploads.mmap.max-bytes:33554432}") long maxTotalBytes) {
+        this.maxFileBytes = maxFileBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.hits = meterRegistry.counter("uploads.mmap.hits");
+        this.misses = meterRegistry.counter("uploads.mmap.misses");
+        Gauge.builder("uploads.mmap.bytes", this, MappedFileCache::getTotalBytes).register(meterRegistry);
+    }
+
+    /**
+     * Read-only view of the whole file, mapping it first if needed, or null
+     * if the file is too large to be cached here.
+     */
+    public ByteBuffer get(Path file, long size) throws IOException {
+        if (size > maxFileBytes || size > maxTotalBytes) {
+            return null;
+        }
+        synchronized (this) {
+            MappedByteBuffer buffer = mapped.get(file);
+            if (buffer != null) {
+                hits.increment();
+                return buffer.asReadOnlyBuffer();
+            }
+        }
+        misses.increment();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        synchronized (this) {
+            MappedByteBuffer previous = mapped.put(file, buffer);
+            totalBytes += size - (previous != null ? previous.capacity() : 0);
+            evict();
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, MappedByteBuffer>> oldest = mapped.entrySet().iterator();
+        while (totalBytes > maxTotalBytes && oldest.hasNext()) {
+            totalBytes -= oldest.next().getValue().capacity();
+            oldest.remove();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+-- Schema as hibernate.ddl-auto=update created it before any of the catalog, order
+-- and review changes that followed. Existing databases are baselined at version 0
+-- (spring.flyway.baseline-on-migrate), so this script runs against them too and
+-- must leave their tables alone: every table is "if not exists" and carries its
+-- constraints inline. V2 then brings either kind of database up to date.
+
+create table if not exists admins (
+    id bigint not null auto_increment,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id),
+    constraint UK_mi8vkhus4xbdbqcac2jm4spvd unique (username)
+) engine=InnoDB;
+
+create table if not exists users (
+    id bigint not null auto_increment,
+    mobile varchar(20),
+    password varchar(255) not null,
+    security_answer varchar(255),
+    security_question varchar(255),
+    username varchar(255) not null,
+    role enum ('ADMIN','USER'),
+    primary key (id),
+    constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username)
+) engine=InnoDB;
+
+create table if not exists products (
+    deleted bit not null,
+    price decimal(38,2) not null,
+    stock integer,
+    id bigint not null auto_increment,
+    description varchar(1000),
+    details varchar(2000),
+    category varchar(255),
+    image_url varchar(255),
+    name varchar(255) not null,
+    subcategory varchar(255),
+    -- pre-variant sizes; moved into product_variants on startup by ProductVariantMigration
+    sizes varchar(255),
+    size_prices varchar(2000),
+    primary key (id)
+) engine=InnoDB;
+
+-- Orders and their lines used IDENTITY ids then; V2 moves them onto pooled sequences
+create table if not exists orders (
+    total_amount decimal(38,2) not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    payment_method varchar(255) not null,
+    payment_status varchar(255),
+    shipping_address varchar(255) not null,
+    status enum ('PENDING','APPROVED','REJECTED','DELIVERED','CANCELLED'),
+    primary key (id),
+    constraint FK32ql8ubntj5uh44ph9659tiih foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table if not exists order_items (
+    price decimal(38,2),
+    quantity integer,
+    id bigint not null auto_increment,
+    order_id bigint,
+    product_id bigint,
+    selected_size varchar(255),
+    primary key (id),
+    constraint FKbioxgbv59vetrxe0ejfubep1w foreign key (order_id) references orders (id),
+    constraint FKocimc7dtr037rh4ls4l95nlfi foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table if not exists reviews (
+    is_approved bit not null,
+    rating integer,
+    id bigint not null auto_increment,
+    product_id bigint not null,
+    user_id bigint not null,
+    comment varchar(1000),
+    primary key (id),
+    constraint FKpl51cejpw4gy5swfar8br9ngi foreign key (product_id) references products (id),
+    constraint FKcgy7qjc1r99dp117y9en6lxye foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table if not exists site_settings (
+    id bigint not null auto_increment,
+    setting_value varchar(2000),
+    setting_key varchar(255) not null,
+    primary key (id),
+    constraint UK_7mkby5o0md29h5yrcwjdh77bb unique (setting_key)
+) engine=InnoDB;
@@ -0,0 +1,13 @@
+-- One row per (product, size). "if not exists" because a database that ran with
+-- ddl-auto=update after variants were introduced already has the table.
+create table if not exists product_variants (
+    price decimal(38,2),
+    sort_order integer not null,
+    stock integer,
+    id bigint not null auto_increment,
+    product_id bigint not null,
+    size varchar(64) not null,
+    primary key (id),
+    constraint uk_product_variants_product_size unique (product_id, size),
+    constraint FKosqitn4s405cynmhb87lkvuau foreign key (product_id) references products (id)
+) engine=InnoDB;
@@ -0,0 +1,24 @@
+-- Indexes for the predicates and orderings of the repository queries. Trailing id
+-- columns match the keyset pagination tie-breakers, so pages are read in index order.
+
+-- Product listing (ProductSpecifications): deleted = false, optional category and
+-- subcategory, newest first; and the price and name sorts over the whole catalog
+create index idx_products_deleted_category_subcategory on products (deleted, category, subcategory, id);
+create index idx_products_deleted_price on products (deleted, price, id);
+create index idx_products_deleted_name on products (deleted, name, id);
+
+-- Order listings are all newest first, so the order indexes are descending and pages are
+-- forward scans; the oldest-first export reads idx_orders_created backwards
+
+-- Order history of a user (findByUserId, /user/{id}/page)
+create index idx_orders_user_created on orders (user_id, created_at desc, id desc);
+-- Admin order pages and exports filtered by status, then by date
+create index idx_orders_status_created on orders (status, created_at desc, id desc);
+-- Unfiltered admin pages, date-range exports and the sales rollup rebuild
+create index idx_orders_created on orders (created_at desc, id desc);
+
+-- Lines of a page of orders (findItemSummaries), in id order
+create index idx_order_items_order on order_items (order_id, id);
+
+-- Password reset lookup (findByMobile)
+create index idx_users_mobile on users (mobile);
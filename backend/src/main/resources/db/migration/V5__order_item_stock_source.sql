@@ -0,0 +1,15 @@
+-- Which stock row each order line debited, so cancelling credits that same row even
+-- if the product's sizes or their stock tracking changed since the order was placed.
+-- variant_stock is true when the size's own stock was debited, false when the
+-- product's was. Removing a size clears variant_id: its stock went with it.
+alter table order_items add column variant_id bigint;
+alter table order_items add column variant_stock boolean not null default false;
+alter table order_items add constraint fk_order_items_variant
+    foreign key (variant_id) references product_variants (id) on delete set null;
+
+-- Existing lines: the row the (product, size) lookup resolved them to until now
+update order_items i set variant_id = (
+    select v.id from product_variants v where v.product_id = i.product_id and v.size = trim(i.selected_size))
+where i.selected_size is not null;
+update order_items i set variant_stock = true
+where exists (select 1 from product_variants v where v.id = i.variant_id and v.stock is not null);
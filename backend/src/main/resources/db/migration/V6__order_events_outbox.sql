@@ -0,0 +1,12 @@
+-- Outbox of order events (OrderEventBus): one row per event and consumer, written in
+-- the transaction that changed the order and deleted in the one that consumed it
+create table order_events (
+    id bigint not null auto_increment,
+    consumer varchar(64) not null,
+    created_at datetime(6) not null,
+    payload text not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- Retry sweep: a consumer's oldest events first
+create index idx_order_events_consumer on order_events (consumer, id);
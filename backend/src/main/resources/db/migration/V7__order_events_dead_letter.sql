@@ -0,0 +1,9 @@
+-- Redelivery attempts per outbox row (OrderEventBus). A row its consumer still rejects
+-- after app.events.max-attempts sweeps is dead-lettered: dead_at is set, and the row is
+-- kept for inspection but no longer retried
+alter table order_events add column attempts integer not null default 0;
+alter table order_events add column dead_at datetime(6);
+
+-- Retry sweep: a consumer's live events, oldest first, past any dead-lettered ones
+create index idx_order_events_consumer_live on order_events (consumer, dead_at, id);
+drop index idx_order_events_consumer on order_events;
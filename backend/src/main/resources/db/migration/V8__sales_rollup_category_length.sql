@@ -0,0 +1,3 @@
+-- Rollup categories are copied from products.category, which is varchar(255); at 100
+-- characters a longer category failed the rollup upsert for every order it was in
+alter table sales_rollups modify category varchar(255) not null;
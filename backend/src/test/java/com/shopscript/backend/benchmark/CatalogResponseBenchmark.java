@@ -0,0 +1,166 @@
+package com.shopscript.backend.benchmark;
+
+import com.shopscript.backend.ShopScriptApplication;
+import com.shopscript.backend.controller.ProductController;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.service.CatalogSnapshot;
+import com.shopscript.backend.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Server CPU time per {@code GET /api/products} before and after the
+ * listing was encoded once per catalog version. "Before" is the old handler,
+ * which returned the snapshot's products for Jackson to serialize on every
+ * request (mounted at {@value #BEFORE_PATH}, through the same message
+ * converters); "after" is the current {@link ProductController}, asked for
+ * the identity and the gzip bytes. Each is requested over HTTP from the
+ * embedded Tomcat, with 500 products that each carry a full 1000-character
+ * description and 2000-character details. Request threads are platform
+ * threads here so their CPU clocks can be read; CPU is summed over
+ * Tomcat's connector threads (workers, poller and acceptor), which leaves
+ * out the client in the same JVM.
+ * <p>
+ * Skipped by a plain {@code mvn test}; run it with
+ * {@code mvn test -Dtest=CatalogResponseBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CatalogResponseBenchmark {
+    static final String BEFORE_PATH = "/api/products/before/serialized";
+
+    private static final int PRODUCTS = 500;
+    private static final int ROUNDS = 10;
+    private static final int REQUESTS_PER_ROUND = 200;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** A request being measured, with the server CPU time it has used so far. */
+    private static class Case {
+        final String name;
+        final HttpRequest request;
+        long cpuNanos;
+        int requests;
+        long responseBytes;
+
+        Case(String name, HttpRequest request) {
+            this.name = name;
+            this.request = request;
+        }
+
+        void run(HttpClient client, int count, boolean measured) throws Exception {
+            long cpu = connectorCpuNanos();
+            for (int i = 0; i < count; i++) {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                assertThat(response.statusCode()).as(name).isEqualTo(200);
+                responseBytes = response.body().length;
+            }
+            if (measured) {
+                cpuNanos += connectorCpuNanos() - cpu;
+                requests += count;
+            }
+        }
+    }
+
+    @Test
+    void encodedOncePerVersionAgainstSerializedPerRequest() throws Exception {
+        List<Case> cases;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ShopScriptApplication.class)
+                .profiles("test")
+                .initializers((GenericApplicationContext app) -> app.registerBean("serializingListing",
+                        RouterFunction.class, () -> serializingListing(app)))
+                .run("--server.port=0", "--spring.threads.virtual.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:catalog-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE")) {
+            ProductService productService = context.getBean(ProductService.class);
+            for (int i = 0; i < PRODUCTS; i++) {
+                productService.createProduct(product(i));
+            }
+            String base = "http://localhost:"
+                    + ((WebServerApplicationContext) context).getWebServer().getPort();
+            cases = List.of(
+                    new Case("before: serialized per request", HttpRequest.newBuilder(URI.create(base + BEFORE_PATH))
+                            .build()),
+                    new Case("after: encoded JSON", HttpRequest.newBuilder(URI.create(base + "/api/products"))
+                            .build()),
+                    new Case("after: encoded gzip", HttpRequest.newBuilder(URI.create(base + "/api/products"))
+                            .header("Accept-Encoding", "gzip").build()));
+
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            for (Case c : cases) {
+                c.run(client, REQUESTS_PER_ROUND, false);
+            }
+            // Rounds alternate between the cases so neither gets a warmer JIT or a quieter machine
+            for (int round = 0; round < ROUNDS; round++) {
+                for (Case c : cases) {
+                    c.run(client, REQUESTS_PER_ROUND, true);
+                }
+            }
+        }
+
+        System.out.printf("%nGET /api/products, %d products, %d requests each%n", PRODUCTS,
+                ROUNDS * REQUESTS_PER_ROUND);
+        System.out.printf("%-32s %16s %14s%n", "", "server CPU us/req", "response bytes");
+        for (Case c : cases) {
+            System.out.printf("%-32s %16.1f %14d%n", c.name, c.cpuNanos / 1000.0 / c.requests, c.responseBytes);
+        }
+        assertThat(cases.get(1).cpuNanos).isLessThan(cases.get(0).cpuNanos);
+        assertThat(cases.get(2).cpuNanos).isLessThan(cases.get(0).cpuNanos);
+    }
+
+    // The listing handler as it was: the active products, serialized on every request
+    private static RouterFunction<ServerResponse> serializingListing(GenericApplicationContext app) {
+        return RouterFunctions.route().GET(BEFORE_PATH, request -> {
+            CatalogSnapshot snapshot = app.getBean(ProductService.class).catalogSnapshot();
+            return ServerResponse.ok().eTag(snapshot.getEtag()).body(snapshot.getActiveProducts());
+        }).build();
+    }
+
+    private static long connectorCpuNanos() {
+        long total = 0;
+        for (ThreadInfo thread : THREADS.getThreadInfo(THREADS.getAllThreadIds())) {
+            if (thread != null && thread.getThreadName().startsWith("http-nio-")) {
+                total += Math.max(0, THREADS.getThreadCpuTime(thread.getThreadId()));
+            }
+        }
+        return total;
+    }
+
+    private static Product product(int i) {
+        Product product = new Product();
+        product.setName("Product " + i);
+        product.setDescription(text("Soft cotton, cut for an easy fit. ", 1000, i));
+        product.setDetails(text("Machine wash cold, tumble dry low, do not bleach. ", 2000, i));
+        product.setPrice(BigDecimal.valueOf(100 + i));
+        product.setStock(10);
+        product.setCategory(i % 2 == 0 ? "men" : "women");
+        product.setSubcategory("Shirts");
+        product.setImageUrl("/uploads/product-" + i + ".jpg");
+        return product;
+    }
+
+    // Repeated sentences with the product number mixed in, so each product's text differs
+    private static String text(String sentence, int length, int i) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(sentence).append(i).append(' ');
+        }
+        return text.substring(0, length);
+    }
+}
@@ -0,0 +1,168 @@
+package com.shopscript.backend.benchmark;
+
+import com.shopscript.backend.ShopScriptApplication;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.UserRepository;
+import com.shopscript.backend.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout latency for 1-, 10- and 50-line orders, with order and order
+ * item inserts batched (the current settings) and with one INSERT round
+ * trip per row, which is what IDENTITY keys forced before: Hibernate had to
+ * execute each insert on its own to read back the generated id. Runs the
+ * whole application against H2 behind {@link RemoteLatencyDriver}, so every
+ * statement costs a network round trip.
+ * <p>
+ * Skipped by a plain {@code mvn test}; run it with
+ * {@code mvn test -Dtest=CheckoutBenchmark -Dbenchmark=true}
+ * (and optionally {@code -Dbenchmark.round-trip-micros=...}).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutBenchmark {
+    private static final int[] LINES = { 1, 10, 50 };
+    private static final int WARMUP = 20;
+    private static final int CHECKOUTS = 100;
+
+    record Result(double p50Ms, double p95Ms, double roundTrips) {
+    }
+
+    /** One running application and what it needs to place orders. */
+    record Shop(OrderService orderService, Long userId, List<Long> productIds) {
+        static Shop in(ConfigurableApplicationContext context) {
+            return new Shop(context.getBean(OrderService.class), buyer(context.getBean(UserRepository.class)),
+                    products(context.getBean(ProductRepository.class)));
+        }
+
+        long checkout(int lines) {
+            Order order = orderOf(productIds, lines);
+            long start = System.nanoTime();
+            orderService.createOrder(userId, order);
+            return System.nanoTime() - start;
+        }
+    }
+
+    @Test
+    void batchedInsertsAgainstOneRoundTripPerRow() {
+        Result[] unbatched = new Result[LINES.length];
+        Result[] batched = new Result[LINES.length];
+        try (ConfigurableApplicationContext perRowContext = start(false);
+                ConfigurableApplicationContext batchedContext = start(true)) {
+            Shop perRow = Shop.in(perRowContext);
+            Shop batching = Shop.in(batchedContext);
+            for (int i = 0; i < LINES.length; i++) {
+                for (int n = 0; n < WARMUP; n++) {
+                    perRow.checkout(LINES[i]);
+                    batching.checkout(LINES[i]);
+                }
+                // Alternate the two so neither gets a warmer JIT or a quieter machine
+                Samples perRowSamples = new Samples();
+                Samples batchedSamples = new Samples();
+                for (int n = 0; n < CHECKOUTS; n++) {
+                    perRowSamples.measure(perRow, LINES[i]);
+                    batchedSamples.measure(batching, LINES[i]);
+                }
+                unbatched[i] = perRowSamples.result();
+                batched[i] = batchedSamples.result();
+            }
+        }
+
+        System.out.printf("%nCheckout latency, %d us per round trip, %d checkouts each%n",
+                RemoteLatencyDriver.roundTripMicros(), CHECKOUTS);
+        System.out.printf("%5s  %-10s %8s %8s %12s%n", "lines", "inserts", "p50 ms", "p95 ms", "round trips");
+        for (int i = 0; i < LINES.length; i++) {
+            print(LINES[i], "per row", unbatched[i]);
+            print(LINES[i], "batched", batched[i]);
+        }
+        for (int i = 1; i < LINES.length; i++) {
+            assertThat(batched[i].roundTrips()).isLessThan(unbatched[i].roundTrips());
+        }
+    }
+
+    private static class Samples {
+        private final long[] nanos = new long[CHECKOUTS];
+        private int count;
+        private long roundTrips;
+
+        void measure(Shop shop, int lines) {
+            long roundTripsBefore = RemoteLatencyDriver.roundTrips();
+            nanos[count++] = shop.checkout(lines);
+            roundTrips += RemoteLatencyDriver.roundTrips() - roundTripsBefore;
+        }
+
+        Result result() {
+            Arrays.sort(nanos);
+            return new Result(percentileMs(50), percentileMs(95), roundTrips / (double) count);
+        }
+
+        private double percentileMs(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return nanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean batching) {
+        String database = batching ? "checkout-batched" : "checkout-per-row";
+        return new SpringApplicationBuilder(ShopScriptApplication.class).profiles("test").run(
+                "--server.port=0",
+                "--spring.datasource.url=" + RemoteLatencyDriver.PREFIX + "h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=" + RemoteLatencyDriver.class.getName(),
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + (batching ? 50 : 0),
+                "--spring.jpa.properties.hibernate.order_inserts=" + batching);
+    }
+
+    private static Long buyer(UserRepository userRepository) {
+        User user = new User();
+        user.setUsername("benchmark-buyer");
+        user.setPassword("x");
+        user.setRole(User.Role.USER);
+        return userRepository.save(user).getId();
+    }
+
+    private static List<Long> products(ProductRepository productRepository) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < LINES[LINES.length - 1]; i++) {
+            Product product = new Product();
+            product.setName("Shirt " + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setStock(1_000_000);
+            ids.add(productRepository.save(product).getId());
+        }
+        return ids;
+    }
+
+    private static Order orderOf(List<Long> productIds, int lines) {
+        Order order = new Order();
+        order.setShippingAddress("1 Main St");
+        order.setPaymentMethod("COD");
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product();
+            product.setId(productIds.get(i));
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1);
+            order.addItem(item);
+        }
+        return order;
+    }
+
+    private static void print(int lines, String inserts, Result result) {
+        System.out.printf("%5d  %-10s %8.2f %8.2f %12.1f%n", lines, inserts, result.p50Ms(), result.p95Ms(),
+                result.roundTrips());
+    }
+}
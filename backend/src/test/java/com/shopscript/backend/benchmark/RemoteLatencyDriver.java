@@ -0,0 +1,115 @@
+package com.shopscript.backend.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver for {@code jdbc:latency:<url>} that hands out connections to
+ * {@code jdbc:<url>} (an in-memory H2 database in the benchmarks) and waits
+ * one network round trip on every statement execution, batch, commit and
+ * rollback, as a remote MySQL server would cost. A batch is one round trip,
+ * as it is with {@code rewriteBatchedStatements=true}. The round trip is
+ * {@code -Dbenchmark.round-trip-micros} (default 1000); the wait parks the
+ * thread, so a virtual thread gives up its carrier as it would on a socket.
+ */
+public class RemoteLatencyDriver implements Driver {
+    static final String PREFIX = "jdbc:latency:";
+
+    private static final long ROUND_TRIP_NANOS = Long.getLong("benchmark.round-trip-micros", 1000) * 1000;
+    private static final Set<String> ROUND_TRIPS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit", "rollback");
+    private static final Set<String> STATEMENTS = Set.of("createStatement", "prepareStatement", "prepareCall");
+    private static final LongAdder roundTrips = new LongAdder();
+
+    static {
+        try {
+            DriverManager.registerDriver(new RemoteLatencyDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Round trips made so far by every connection of this driver. */
+    public static long roundTrips() {
+        return roundTrips.sum();
+    }
+
+    public static long roundTripMicros() {
+        return ROUND_TRIP_NANOS / 1000;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Connection connection = DriverManager.getConnection("jdbc:" + url.substring(PREFIX.length()), info);
+        return (Connection) delayed(Connection.class, connection);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    // Proxies the connection, and each statement it creates, to wait before calls that reach the server
+    private static Object delayed(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(RemoteLatencyDriver.class.getClassLoader(), new Class<?>[] { type },
+                (p, method, args) -> {
+                    if (ROUND_TRIPS.contains(method.getName())) {
+                        roundTrip();
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    return STATEMENTS.contains(method.getName()) ? delayed(method.getReturnType(), result) : result;
+                });
+    }
+
+    private static void roundTrip() {
+        roundTrips.increment();
+        long deadline = System.nanoTime() + ROUND_TRIP_NANOS;
+        for (long left = ROUND_TRIP_NANOS; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
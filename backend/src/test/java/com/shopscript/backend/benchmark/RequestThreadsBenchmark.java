@@ -0,0 +1,171 @@
+package com.shopscript.backend.benchmark;
+
+import com.shopscript.backend.ShopScriptApplication;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.UserRepository;
+import com.shopscript.backend.security.JwtUtils;
+import com.shopscript.backend.security.UserPrincipal;
+import com.shopscript.backend.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput with requests on Tomcat's 200 platform threads against one
+ * virtual thread per request, at several numbers of concurrent clients.
+ * Half of the clients call a database-bound endpoint (an authenticated
+ * review listing: the user lookup and the review query each reach the
+ * database) and half an in-memory one (a product from the catalog cache).
+ * Both applications run side by side in this JVM against H2 behind
+ * {@link RemoteLatencyDriver}, with the same pool and connection bulkhead
+ * settings; each concurrency level is run against one and then the other.
+ * Clients loop closed: each sends its next request when the last one has
+ * answered. Responses other than 200 (the bulkhead's 503s) are counted
+ * apart and are not in the throughput.
+ * <p>
+ * Skipped by a plain {@code mvn test}; run it with
+ * {@code mvn test -Dtest=RequestThreadsBenchmark -Dbenchmark=true}
+ * (and optionally {@code -Dbenchmark.round-trip-micros=...} and a
+ * comma-separated {@code -Dbenchmark.clients=...}).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestThreadsBenchmark {
+    private static final int[] CLIENTS = Arrays.stream(System.getProperty("benchmark.clients", "50,200,1000,5000")
+            .split(",")).mapToInt(Integer::parseInt).toArray();
+    private static final long JIT_WARMUP_MS = 20000;
+    private static final long WARMUP_MS = 5000;
+    private static final long MEASURE_MS = 10000;
+
+    /** One running application and the two requests its clients send. */
+    record Server(String name, HttpRequest database, HttpRequest memory) {
+        static Server in(String name, ConfigurableApplicationContext context) {
+            User admin = context.getBean(UserRepository.class).findByUsername("admin").orElseThrow();
+            String token = context.getBean(JwtUtils.class).generateJwtToken(
+                    new UserPrincipal(admin.getId(), admin.getUsername(), null, admin.getRole().name()));
+            Product product = new Product();
+            product.setName("Shirt");
+            product.setPrice(BigDecimal.TEN);
+            product.setStock(10);
+            Long productId = context.getBean(ProductService.class).createProduct(product).getId();
+
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            return new Server(name,
+                    HttpRequest.newBuilder(URI.create(base + "/api/reviews/product/" + productId))
+                            .header("Authorization", "Bearer " + token).build(),
+                    HttpRequest.newBuilder(URI.create(base + "/api/products/" + productId)).build());
+        }
+    }
+
+    /** Answered requests of one kind while measuring. */
+    private static class Requests {
+        final ConcurrentLinkedQueue<Long> nanos = new ConcurrentLinkedQueue<>();
+        final LongAdder failed = new LongAdder();
+
+        double perSecond() {
+            return nanos.size() * 1000.0 / MEASURE_MS;
+        }
+
+        double p99Ms() {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            return sorted.length == 0 ? 0 : sorted[(int) Math.ceil(0.99 * sorted.length) - 1] / 1_000_000.0;
+        }
+    }
+
+    @Test
+    void virtualAgainstPlatformThreads() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try (ConfigurableApplicationContext platformContext = start(false);
+                ConfigurableApplicationContext virtualContext = start(true)) {
+            List<Server> servers = List.of(Server.in("platform", platformContext),
+                    Server.in("virtual", virtualContext));
+
+            // Let the JIT compile both request paths before anything is measured
+            for (Server server : servers) {
+                load(client, server, CLIENTS[0], JIT_WARMUP_MS, new Requests(), new Requests());
+            }
+
+            System.out.printf("%n%d us per database round trip, %d s per run after %d s warmup%n",
+                    RemoteLatencyDriver.roundTripMicros(), MEASURE_MS / 1000, WARMUP_MS / 1000);
+            System.out.printf("%7s  %-9s %12s %10s %8s %12s %10s%n", "clients", "threads", "db req/s", "db p99 ms",
+                    "db 503s", "memory req/s", "mem p99 ms");
+            for (int clients : CLIENTS) {
+                for (Server server : servers) {
+                    Requests database = new Requests();
+                    Requests memory = new Requests();
+                    load(client, server, clients, WARMUP_MS, database, memory);
+                    System.out.printf("%7d  %-9s %12.0f %10.1f %8d %12.0f %10.1f%n", clients, server.name(),
+                            database.perSecond(), database.p99Ms(), database.failed.sum(), memory.perSecond(),
+                            memory.p99Ms());
+                }
+            }
+        }
+    }
+
+    private static void load(HttpClient client, Server server, int clients, long warmupMs, Requests database,
+            Requests memory) throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            boolean toDatabase = i % 2 == 0;
+            HttpRequest request = toDatabase ? server.database() : server.memory();
+            Requests requests = toDatabase ? database : memory;
+            threads.add(Thread.ofVirtual().start(() -> {
+                while (!stopped.get()) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (measuring.get()) {
+                        if (status == 200) {
+                            requests.nanos.add(System.nanoTime() - start);
+                        } else {
+                            requests.failed.increment();
+                        }
+                    }
+                }
+            }));
+        }
+        Thread.sleep(warmupMs);
+        measuring.set(true);
+        Thread.sleep(MEASURE_MS);
+        measuring.set(false);
+        stopped.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        String database = virtualThreads ? "threads-virtual" : "threads-platform";
+        return new SpringApplicationBuilder(ShopScriptApplication.class).profiles("test").run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=" + RemoteLatencyDriver.PREFIX + "h2:mem:" + database
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=" + RemoteLatencyDriver.class.getName(),
+                // Each rejected query would otherwise log its error, which costs more than the request
+                "--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF");
+    }
+}
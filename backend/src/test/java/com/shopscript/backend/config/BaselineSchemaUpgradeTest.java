@@ -0,0 +1,190 @@
+package com.shopscript.backend.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migrations the way a deployment does (baseline-on-migrate at
+ * version 0) against H2 in MySQL mode: on an empty database, on one as the
+ * code before migrations left it, and on one that ddl-auto=update already
+ * took part of the way.
+ */
+class BaselineSchemaUpgradeTest {
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void createsCurrentSchemaOnEmptyDatabase() {
+        migrate();
+
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_seq", Long.class)).isEqualTo(1L);
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_item_seq", Long.class)).isEqualTo(1L);
+        assertThat(columns("products")).contains("rating_count", "rating_5", "version", "last_modified");
+        assertThat(columns("reviews")).contains("rejected");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM sales_rollups", Integer.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM product_variants", Integer.class)).isZero();
+    }
+
+    @Test
+    void bringsBaselineDatabaseForward() throws Exception {
+        createBaselineSchema();
+        jdbc.update("INSERT INTO users (id, username, password, role) VALUES (1, 'bob', 'x', 'USER')");
+        jdbc.update("INSERT INTO products (id, name, price, stock, deleted, category) VALUES (1, 'Shirt', 10, 5, FALSE, 'men')");
+        jdbc.update("INSERT INTO reviews (id, product_id, user_id, rating, is_approved) VALUES (1, 1, 1, 5, TRUE)");
+        jdbc.update("INSERT INTO reviews (id, product_id, user_id, rating, is_approved) VALUES (2, 1, 1, 3, TRUE)");
+        jdbc.update("INSERT INTO reviews (id, product_id, user_id, rating, is_approved) VALUES (3, 1, 1, 1, FALSE)");
+        jdbc.update("INSERT INTO orders (id, user_id, total_amount, status, created_at, shipping_address, "
+                + "payment_method) VALUES (120, 1, 30, 'DELIVERED', TIMESTAMP '2024-03-01 10:00:00', 'x', 'COD')");
+        jdbc.update("INSERT INTO order_items (id, order_id, product_id, quantity, price) VALUES (345, 120, 1, 3, 10)");
+
+        migrate();
+
+        // The pooled optimizer hands out next_val - 49 .. next_val, so both must be clear of existing ids
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_seq", Long.class))
+                .isEqualTo(120L + BaselineSchemaUpgrade.SEQUENCE_ALLOCATION);
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_item_seq", Long.class))
+                .isEqualTo(345L + BaselineSchemaUpgrade.SEQUENCE_ALLOCATION);
+
+        Map<String, Object> ratings = jdbc.queryForMap(
+                "SELECT rating_count, rating_sum, rating_1, rating_3, rating_5, version FROM products WHERE id = 1");
+        assertThat(ratings).containsEntry("rating_count", 2).containsEntry("rating_sum", 8)
+                .containsEntry("rating_1", 0).containsEntry("rating_3", 1).containsEntry("rating_5", 1)
+                .containsEntry("version", 0L);
+        assertThat(jdbc.queryForList("SELECT id FROM reviews WHERE rejected = FALSE", Long.class)).hasSize(3);
+
+        List<Map<String, Object>> rollups = jdbc.queryForList(
+                "SELECT category, status, revenue, order_count, units FROM sales_rollups ORDER BY category");
+        assertThat(rollups).hasSize(2);
+        assertThat(rollups.get(0)).containsEntry("category", "_all").containsEntry("status", "DELIVERED")
+                .containsEntry("order_count", 1L).containsEntry("units", 3L);
+        assertThat((BigDecimal) rollups.get(0).get("revenue")).isEqualByComparingTo("30");
+        assertThat(rollups.get(1)).containsEntry("category", "men").containsEntry("order_count", 1L);
+
+        assertThat(jdbc.queryForObject("SELECT MAX(version) FROM flyway_schema_history WHERE success",
+                String.class)).isEqualTo("8");
+    }
+
+    @Test
+    void leavesPartsAlreadyUpgradedByHibernateAlone() throws Exception {
+        createBaselineSchema();
+        jdbc.execute("ALTER TABLE reviews ADD COLUMN rejected boolean not null default false");
+        jdbc.execute("CREATE TABLE sales_rollups (revenue decimal(19,2) not null, sales_day date not null, "
+                + "order_count bigint not null, units bigint not null, status varchar(20) not null, "
+                + "category varchar(100) not null, primary key (sales_day, status, category))");
+        jdbc.update("INSERT INTO sales_rollups VALUES (99, DATE '2024-03-01', 9, 9, 'PENDING', '_all')");
+        jdbc.execute("CREATE TABLE order_seq (next_val bigint)");
+        jdbc.update("INSERT INTO order_seq VALUES (1000)");
+        jdbc.update("INSERT INTO users (id, username, password, role) VALUES (1, 'bob', 'x', 'USER')");
+        jdbc.update("INSERT INTO orders (id, user_id, total_amount, status, created_at, shipping_address, "
+                + "payment_method) VALUES (900, 1, 30, 'PENDING', TIMESTAMP '2024-03-01 10:00:00', 'x', 'COD')");
+
+        migrate();
+
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_seq", Long.class)).isEqualTo(1000L);
+        assertThat(jdbc.queryForObject("SELECT next_val FROM order_item_seq", Long.class)).isEqualTo(1L);
+        assertThat(jdbc.queryForObject("SELECT order_count FROM sales_rollups", Long.class)).isEqualTo(9L);
+        assertThat(columns("products")).contains("rating_count", "version");
+    }
+
+    @Test
+    void recordsWhichStockExistingOrderLinesTookFrom() {
+        migrate("4");
+        jdbc.update("INSERT INTO users (id, username, password, role) VALUES (1, 'bob', 'x', 'USER')");
+        jdbc.update("INSERT INTO products (id, name, price, stock, deleted) VALUES (1, 'Shirt', 10, 5, FALSE)");
+        jdbc.update("INSERT INTO product_variants (id, product_id, size, sort_order, stock) VALUES (7, 1, 'M', 0, 3)");
+        jdbc.update("INSERT INTO product_variants (id, product_id, size, sort_order) VALUES (8, 1, 'L', 1)");
+        jdbc.update("INSERT INTO orders (id, user_id, total_amount, status, created_at, shipping_address, "
+                + "payment_method) VALUES (1, 1, 30, 'PENDING', TIMESTAMP '2024-03-01 10:00:00', 'x', 'COD')");
+        jdbc.update("INSERT INTO order_items (id, order_id, product_id, quantity, price, selected_size) "
+                + "VALUES (1, 1, 1, 1, 10, 'M'), (2, 1, 1, 1, 10, 'L'), (3, 1, 1, 1, 10, NULL), (4, 1, 1, 1, 10, 'XL')");
+
+        migrate();
+
+        List<Map<String, Object>> lines = jdbc.queryForList(
+                "SELECT variant_id, variant_stock FROM order_items ORDER BY id");
+        assertThat(lines.get(0)).containsEntry("variant_id", 7L).containsEntry("variant_stock", true);
+        assertThat(lines.get(1)).containsEntry("variant_id", 8L).containsEntry("variant_stock", false);
+        assertThat(lines.get(2)).containsEntry("variant_id", null).containsEntry("variant_stock", false);
+        assertThat(lines.get(3)).containsEntry("variant_id", null).containsEntry("variant_stock", false);
+
+        jdbc.update("DELETE FROM product_variants WHERE id = 7");
+        assertThat(jdbc.queryForObject("SELECT variant_id FROM order_items WHERE id = 1", Long.class)).isNull();
+    }
+
+    @Test
+    void movesLegacySizesIntoVariantsBeforeOrderLinesAreResolved() throws Exception {
+        createBaselineSchema();
+        jdbc.update("INSERT INTO users (id, username, password, role) VALUES (1, 'bob', 'x', 'USER')");
+        jdbc.update("INSERT INTO products (id, name, price, stock, deleted, sizes, size_prices) "
+                + "VALUES (1, 'Shirt', 10, 5, FALSE, 'S, M,M,,L', '{\"M\":12,\"L\":0}')");
+        jdbc.update("INSERT INTO products (id, name, price, stock, deleted, size_prices) "
+                + "VALUES (2, 'Hat', 10, 5, FALSE, 'not json')");
+        jdbc.update("INSERT INTO orders (id, user_id, total_amount, status, created_at, shipping_address, "
+                + "payment_method) VALUES (1, 1, 12, 'PENDING', TIMESTAMP '2024-03-01 10:00:00', 'x', 'COD')");
+        jdbc.update("INSERT INTO order_items (id, order_id, product_id, quantity, price, selected_size) "
+                + "VALUES (1, 1, 1, 1, 12, 'M')");
+
+        migrate();
+
+        List<Map<String, Object>> variants = jdbc.queryForList("SELECT id, size, price, stock, sort_order "
+                + "FROM product_variants WHERE product_id = 1 ORDER BY sort_order");
+        assertThat(variants).extracting(row -> row.get("size")).containsExactly("S", "M", "L");
+        assertThat(variants.get(0)).containsEntry("price", null).containsEntry("stock", null);
+        assertThat((BigDecimal) variants.get(1).get("price")).isEqualByComparingTo("12");
+        assertThat(variants.get(2)).containsEntry("price", null);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM product_variants WHERE product_id = 2", Integer.class))
+                .isZero();
+        assertThat(jdbc.queryForList("SELECT sizes, size_prices, version FROM products ORDER BY id"))
+                .allSatisfy(row -> assertThat(row).containsEntry("sizes", null).containsEntry("size_prices", null)
+                        .containsEntry("version", 1L));
+        assertThat(jdbc.queryForObject("SELECT variant_id FROM order_items WHERE id = 1", Long.class))
+                .isEqualTo(variants.get(1).get("id"));
+    }
+
+    private void migrate() {
+        migrate(null);
+    }
+
+    private void migrate(String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .target(target != null ? target : "latest")
+                .javaMigrations(new BaselineSchemaUpgrade(), new ProductVariantMigration())
+                .load()
+                .migrate();
+    }
+
+    // A database as hibernate.ddl-auto=update left it before Flyway: the V1 tables, no history
+    private void createBaselineSchema() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline_schema.sql"));
+        }
+    }
+
+    private List<String> columns(String table) {
+        return jdbc.queryForList("SELECT column_name FROM information_schema.columns WHERE table_name = ?",
+                String.class, table);
+    }
+}
@@ -0,0 +1,119 @@
+package com.shopscript.backend.controller;
+
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.UserRepository;
+import com.shopscript.backend.security.JwtUtils;
+import com.shopscript.backend.security.UserPrincipal;
+import com.shopscript.backend.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Downloads whole exports over HTTP as an admin. The body is written after
+ * the controller returns and the request finishes with an async dispatch,
+ * which must be let through security like the request that started it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class OrderExportControllerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private Order order;
+
+    @BeforeEach
+    void placeOrder() {
+        User buyer = new User();
+        buyer.setUsername("exporter-" + UUID.randomUUID());
+        buyer.setPassword("x");
+        buyer.setRole(User.Role.USER);
+        buyer = userRepository.save(buyer);
+
+        Product product = new Product();
+        product.setName("Shirt");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(5);
+        product = productRepository.saveAndFlush(product);
+
+        Order placed = new Order();
+        placed.setShippingAddress("1 Main St");
+        placed.setPaymentMethod("COD");
+        OrderItem item = new OrderItem();
+        Product ref = new Product();
+        ref.setId(product.getId());
+        item.setProduct(ref);
+        item.setQuantity(1);
+        placed.addItem(item);
+        order = orderService.createOrder(buyer.getId(), placed);
+    }
+
+    @Test
+    void adminDownloadsFullNdjsonExport() throws Exception {
+        HttpResponse<String> response = export("");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("application/x-ndjson"));
+        assertThat(response.body()).contains("{\"id\":" + order.getId() + ",").endsWith("\n");
+    }
+
+    @Test
+    void adminDownloadsFullCsvExport() throws Exception {
+        HttpResponse<String> response = export("?format=csv");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).startsWith("order_id,created_at,").contains("\r\n" + order.getId() + ",")
+                .endsWith("\r\n");
+    }
+
+    @Test
+    void exportRequiresAdmin() throws Exception {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/orders/export")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(401);
+    }
+
+    private HttpResponse<String> export(String query) throws Exception {
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        String token = jwtUtils.generateJwtToken(
+                new UserPrincipal(admin.getId(), admin.getUsername(), null, admin.getRole().name()));
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/orders/export" + query))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,205 @@
+package com.shopscript.backend.controller;
+
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.UserRepository;
+import com.shopscript.backend.security.JwtUtils;
+import com.shopscript.backend.security.UserPrincipal;
+import com.shopscript.backend.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Serves stored blobs over HTTP: single and suffix byte ranges, ranges that
+ * cannot be satisfied, If-Range, revalidation of content-addressed names,
+ * and uploads of the same bytes being stored once.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UploadedFileControllerTest {
+    private static final int SMALL = 1000;
+    private static final int LARGE = 300_000; // above the memory-mapped file limit, so sent from disk
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private byte[] small;
+    private String smallName;
+
+    @BeforeEach
+    void storeBlob() throws Exception {
+        small = bytes(SMALL);
+        smallName = blobStore.put(new ByteArrayInputStream(small), "png");
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=10-19");
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.headers().firstValue("Content-Range")).hasValue("bytes 10-19/" + SMALL);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(small, 10, 20));
+    }
+
+    @Test
+    void openEndedRangeRunsToTheEndOfTheFile() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=990-");
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.headers().firstValue("Content-Range")).hasValue("bytes 990-999/" + SMALL);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(small, 990, SMALL));
+    }
+
+    @Test
+    void suffixRangeIsTheLastBytes() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=-4");
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.headers().firstValue("Content-Range"))
+                .hasValue("bytes " + (SMALL - 4) + "-" + (SMALL - 1) + "/" + SMALL);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(small, SMALL - 4, SMALL));
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=" + SMALL + "-");
+
+        assertThat(response.statusCode()).isEqualTo(416);
+        assertThat(response.headers().firstValue("Content-Range")).hasValue("bytes */" + SMALL);
+    }
+
+    @Test
+    void severalRangesGetTheWholeFile() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=0-1,5-6");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(small);
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=10-19", "If-Range", "\"stale\"");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Range")).isEmpty();
+        assertThat(response.body()).isEqualTo(small);
+    }
+
+    @Test
+    void currentIfRangeGetsTheRange() throws Exception {
+        HttpResponse<byte[]> response = get(smallName, "Range", "bytes=10-19", "If-Range", "\"" + smallName + "\"");
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.body()).isEqualTo(Arrays.copyOfRange(small, 10, 20));
+    }
+
+    @Test
+    void rangeOfLargeFileIsSentFromDisk() throws Exception {
+        byte[] large = bytes(LARGE);
+        String name = blobStore.put(new ByteArrayInputStream(large), "png");
+
+        HttpResponse<byte[]> whole = get(name);
+        HttpResponse<byte[]> range = get(name, "Range", "bytes=100000-100099");
+
+        assertThat(whole.statusCode()).isEqualTo(200);
+        assertThat(whole.body()).isEqualTo(large);
+        assertThat(range.statusCode()).isEqualTo(206);
+        assertThat(range.body()).isEqualTo(Arrays.copyOfRange(large, 100_000, 100_100));
+    }
+
+    @Test
+    void contentAddressedNameRevalidatesWithoutTheFile() throws Exception {
+        // A hash name that was never stored: the answer can only come from the name
+        String name = HexFormat.of().formatHex(new byte[32]).replace('0', 'a') + ".png";
+
+        HttpResponse<byte[]> revalidated = get(name, "If-None-Match", "\"" + name + "\"");
+        HttpResponse<byte[]> fetched = get(name);
+
+        assertThat(revalidated.statusCode()).isEqualTo(304);
+        assertThat(revalidated.headers().firstValue("Cache-Control")).hasValueSatisfying(
+                value -> assertThat(value).contains("immutable"));
+        assertThat(fetched.statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void sameBytesUploadedTwiceGetOneName() throws Exception {
+        byte[] image = bytes(2048);
+
+        HttpResponse<String> first = upload("first.png", image);
+        HttpResponse<String> second = upload("second.PNG", image);
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(first.body()).contains("/uploads/").isEqualTo(second.body());
+    }
+
+    @Test
+    void uploadWithUnsupportedExtensionIsRejected() throws Exception {
+        HttpResponse<String> response = upload("notes.txt", bytes(16));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    private HttpResponse<byte[]> get(String name, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/uploads/" + name));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<String> upload(String filename, byte[] content) throws Exception {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" + filename
+                + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        String token = jwtUtils.generateJwtToken(
+                new UserPrincipal(admin.getId(), admin.getUsername(), null, admin.getRole().name()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/uploads/image"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Distinct per test run, so each run stores fresh blobs
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(UUID.randomUUID().getMostSignificantBits()).nextBytes(bytes);
+        return bytes;
+    }
+}
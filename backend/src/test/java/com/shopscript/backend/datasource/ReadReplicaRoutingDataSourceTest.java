@@ -0,0 +1,168 @@
+package com.shopscript.backend.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Routes through two H2 databases, each of which says which one it is, wired
+ * the way ReadReplicaConfig wires the real pools. Reads run on a new virtual
+ * thread each, as separate requests do, so writes elsewhere in the test JVM
+ * do not keep them on the primary.
+ */
+class ReadReplicaRoutingDataSourceTest {
+    private static final long MAX_STALENESS_MS = 5000;
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica = database("replica");
+
+    private ReadReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate reads;
+    private TransactionTemplate writes;
+
+    @Test
+    void readsUsePrimaryUntilReplicaPassesCheck() throws Exception {
+        route("SELECT 0");
+
+        assertThat(readOnly()).isEqualTo("primary");
+        routing.checkReplica();
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void writesAndNonTransactionalReadsUsePrimary() throws Exception {
+        route("SELECT 0");
+        routing.checkReplica();
+
+        assertThat(inNewRequest(() -> writes.execute(status -> whoAmI()))).isEqualTo("primary");
+        assertThat(inNewRequest(this::whoAmI)).isEqualTo("primary");
+    }
+
+    @Test
+    void replicaLaggingOrFailingItsLagQueryIsBypassed() throws Exception {
+        route("SELECT 0");
+        routing.checkReplica();
+        assertThat(readOnly()).isEqualTo("replica");
+
+        route("SELECT 6"); // seconds, over the 5000 ms limit
+        routing.checkReplica();
+        assertThat(readOnly()).isEqualTo("primary");
+
+        route("SELECT lag FROM missing_table");
+        routing.checkReplica();
+        assertThat(readOnly()).isEqualTo("primary");
+    }
+
+    @Test
+    void replicationStoppedIsBypassed() throws Exception {
+        route("SELECT CAST(NULL AS INT) AS Seconds_Behind_Source");
+        routing.checkReplica();
+        assertThat(readOnly()).isEqualTo("primary");
+    }
+
+    @Test
+    void writerReadsItsOwnWritesButOtherThreadsMayNot() throws Exception {
+        route("SELECT 0");
+        routing.checkReplica();
+
+        String readAfterWrite = inNewRequest(() -> {
+            writes.executeWithoutResult(status -> whoAmI());
+            return reads.execute(status -> whoAmI());
+        });
+        assertThat(readAfterWrite).isEqualTo("primary");
+        // The client's next request runs on another thread, which the write does not cover
+        assertThat(readOnly()).isEqualTo("replica");
+    }
+
+    @Test
+    void writeWindowEndsWithRequestAndSkipsRollbacks() throws Exception {
+        route("SELECT 0");
+        routing.checkReplica();
+
+        // A pooled thread serving one request after another
+        assertThat(inNewRequest(() -> {
+            writes.executeWithoutResult(status -> whoAmI());
+            ReadReplicaRoutingDataSource.endRequest();
+            return reads.execute(status -> whoAmI());
+        })).isEqualTo("replica");
+        assertThat(inNewRequest(() -> {
+            writes.executeWithoutResult(status -> {
+                whoAmI();
+                status.setRollbackOnly();
+            });
+            return reads.execute(status -> whoAmI());
+        })).isEqualTo("replica");
+    }
+
+    @Test
+    void onPrimaryKeepsReadsOffReplica() throws Exception {
+        route("SELECT 0");
+        routing.checkReplica();
+
+        Supplier<String> read = () -> reads.execute(status -> whoAmI());
+        assertThat(inNewRequest(() -> ReadReplicaRoutingDataSource.onPrimary(read))).isEqualTo("primary");
+        // Leaving a nested call must not end the outer one, and leaving the outer one ends it
+        assertThat(inNewRequest(() -> ReadReplicaRoutingDataSource.onPrimary(() -> {
+            ReadReplicaRoutingDataSource.onPrimary(read);
+            return read.get();
+        }))).isEqualTo("primary");
+        assertThat(inNewRequest(() -> {
+            ReadReplicaRoutingDataSource.onPrimary(read);
+            return read.get();
+        })).isEqualTo("replica");
+    }
+
+    @Test
+    void blankLagQueryIsRejected() {
+        assertThatThrownBy(() -> route(" ")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("lag-query");
+    }
+
+    private void route(String lagQuery) {
+        routing = new ReadReplicaRoutingDataSource(primary, replica, MAX_STALENESS_MS, lagQuery,
+                new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+        writes = new TransactionTemplate(transactionManager);
+    }
+
+    private String readOnly() throws Exception {
+        return inNewRequest(() -> reads.execute(status -> whoAmI()));
+    }
+
+    private static String inNewRequest(Supplier<String> request) throws Exception {
+        FutureTask<String> task = new FutureTask<>(request::get);
+        Thread.ofVirtual().start(task).join();
+        return task.get();
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(20))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}
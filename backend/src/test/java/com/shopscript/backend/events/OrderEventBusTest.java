@@ -0,0 +1,252 @@
+package com.shopscript.backend.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every committed event reaches every consumer exactly once: when the ring
+ * is full, when a consumer throws, and when the process stops between
+ * commit and delivery. An event that can never be delivered is
+ * dead-lettered without holding back the ones after it.
+ */
+class OrderEventBusTest {
+    private static final long RETRY_INTERVAL_MS = 100;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private final List<OrderEventBus> buses = new ArrayList<>();
+
+    /**
+     * Records the order ids it is handed; can be told to fail its next few batches, to go slowly, or to
+     * reject every batch holding one of some orders' events.
+     */
+    private static class RecordingConsumer implements OrderEventConsumer {
+        final List<Long> orderIds = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final Set<Long> rejected = ConcurrentHashMap.newKeySet();
+        volatile long delayMs;
+
+        @Override
+        public String getName() {
+            return "recording";
+        }
+
+        @Override
+        public void onEvents(List<OrderEvent> events) {
+            if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw new IllegalStateException("consumer down");
+            }
+            if (events.stream().anyMatch(event -> rejected.contains(event.getOrderId()))) {
+                throw new IllegalStateException("event rejected");
+            }
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.forEach(event -> orderIds.add(event.getOrderId()));
+        }
+    }
+
+    @BeforeEach
+    void createOutbox() throws Exception {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection,
+                    new ClassPathResource("db/migration/V6__order_events_outbox.sql"));
+            ScriptUtils.executeSqlScript(connection,
+                    new ClassPathResource("db/migration/V7__order_events_dead_letter.sql"));
+        }
+    }
+
+    @AfterEach
+    void stopBuses() throws InterruptedException {
+        for (OrderEventBus bus : buses) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void deliversCommittedEventsOnceAndEmptiesOutbox() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer();
+        OrderEventBus bus = bus(consumer, 1024);
+
+        for (long id = 1; id <= 20; id++) {
+            long orderId = id;
+            transactionTemplate.executeWithoutResult(status -> bus.publishAfterCommit(event(orderId)));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            bus.publishAfterCommit(event(99));
+            status.setRollbackOnly();
+        });
+
+        awaitDelivered(consumer, 20);
+        Thread.sleep(3 * RETRY_INTERVAL_MS);
+        assertThat(consumer.orderIds).hasSize(20).doesNotContain(99L).doesNotHaveDuplicates();
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void failedBatchIsRetriedFromOutbox() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer();
+        consumer.failures.set(2);
+        OrderEventBus bus = bus(consumer, 1024);
+
+        for (long id = 1; id <= 5; id++) {
+            bus.publishAfterCommit(event(id));
+        }
+
+        awaitDelivered(consumer, 5);
+        assertThat(consumer.orderIds).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void fullRingDefersToOutboxInsteadOfDropping() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer();
+        consumer.delayMs = 20;
+        OrderEventBus bus = bus(consumer, 2);
+
+        for (long id = 1; id <= 30; id++) {
+            bus.publishAfterCommit(event(id));
+        }
+
+        awaitDelivered(consumer, 30);
+        assertThat(consumer.orderIds).doesNotHaveDuplicates().hasSize(30);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void eventsCommittedBeforeStopAreDeliveredAfterRestart() throws Exception {
+        RecordingConsumer before = new RecordingConsumer();
+        OrderEventBus stopped = bus(before, 1024);
+        stopped.shutdown(); // as if the process died right after these commits
+        for (long id = 1; id <= 3; id++) {
+            long orderId = id;
+            transactionTemplate.executeWithoutResult(status -> stopped.publishAfterCommit(event(orderId)));
+        }
+        assertThat(outboxSize()).isEqualTo(3);
+
+        RecordingConsumer after = new RecordingConsumer();
+        bus(after, 1024);
+
+        awaitDelivered(after, 3);
+        assertThat(before.orderIds).isEmpty();
+        assertThat(after.orderIds).containsExactly(1L, 2L, 3L);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void eventRejectedEveryTimeIsDeadLetteredWithoutBlockingLaterEvents() throws Exception {
+        RecordingConsumer consumer = new RecordingConsumer();
+        consumer.rejected.add(3L);
+        OrderEventBus bus = bus(consumer, 1024);
+
+        for (long id = 1; id <= 20; id++) {
+            bus.publishAfterCommit(event(id));
+        }
+
+        awaitDelivered(consumer, 19);
+        await(() -> deadLetters() == 1);
+        assertThat(consumer.orderIds).doesNotContain(3L).doesNotHaveDuplicates().hasSize(19);
+        assertThat(outboxSize()).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT attempts FROM order_events", Integer.class)).isEqualTo(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void unreadableEventIsDeadLetteredWithoutBlockingLaterEvents() throws Exception {
+        jdbc.update("INSERT INTO order_events (consumer, created_at, payload) VALUES ('recording', ?, 'not json')",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+        OrderEventBus stopped = bus(new RecordingConsumer(), 1024);
+        stopped.shutdown(); // leave these to the sweep, behind the unreadable row
+        for (long id = 1; id <= 20; id++) {
+            stopped.publishAfterCommit(event(id));
+        }
+
+        RecordingConsumer consumer = new RecordingConsumer();
+        bus(consumer, 1024);
+
+        awaitDelivered(consumer, 20);
+        await(() -> deadLetters() == 1);
+        assertThat(consumer.orderIds).doesNotHaveDuplicates().hasSize(20);
+        assertThat(outboxSize()).isEqualTo(1);
+    }
+
+    private OrderEventBus bus(OrderEventConsumer consumer, int ringSize) {
+        OrderEventBus bus = new OrderEventBus(List.of(consumer), jdbc, transactionTemplate,
+                new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(), ringSize, 8,
+                RETRY_INTERVAL_MS, MAX_ATTEMPTS);
+        buses.add(bus);
+        return bus;
+    }
+
+    private static OrderEvent event(long orderId) {
+        Order order = new Order();
+        order.setId(orderId);
+        order.setStatus(Order.Status.PENDING);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 0));
+        order.setTotalAmount(BigDecimal.TEN);
+        OrderItem item = new OrderItem();
+        Product product = new Product();
+        product.setId(7L);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPrice(BigDecimal.TEN);
+        order.addItem(item);
+        return OrderEvent.created(order);
+    }
+
+    private int outboxSize() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM order_events", Integer.class);
+    }
+
+    private int deadLetters() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM order_events WHERE dead_at IS NOT NULL", Integer.class);
+    }
+
+    private static void awaitDelivered(RecordingConsumer consumer, int count) throws InterruptedException {
+        await(() -> consumer.orderIds.size() >= count);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.shopscript.backend.images;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The variant cache stays within its byte budget by evicting the least
+ * recently used entries, and rebuilds its index from disk on restart.
+ */
+class VariantCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() throws IOException {
+        VariantCache cache = new VariantCache(dir, 250);
+        add(cache, "a", 100);
+        add(cache, "b", 100);
+        assertThat(cache.get("a")).isNotNull(); // now b is the least recently used
+
+        add(cache, "c", 100);
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(dir.resolve("b")).doesNotExist();
+        assertThat(cache.get("a")).exists();
+        assertThat(cache.get("c")).exists();
+        assertThat(cache.getTotalBytes()).isEqualTo(200);
+    }
+
+    @Test
+    void keepsAnEntryLargerThanTheBudgetUntilTheNextOne() throws IOException {
+        VariantCache cache = new VariantCache(dir, 50);
+        add(cache, "big", 100);
+        assertThat(cache.get("big")).exists();
+
+        add(cache, "small", 10);
+
+        assertThat(cache.get("big")).isNull();
+        assertThat(cache.getTotalBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void replacingAnEntryCountsOnlyItsNewSize() throws IOException {
+        VariantCache cache = new VariantCache(dir, 1000);
+        add(cache, "a", 100);
+        add(cache, "a", 40);
+
+        assertThat(cache.getTotalBytes()).isEqualTo(40);
+        assertThat(cache.get("a")).hasSize(40);
+    }
+
+    @Test
+    void restartRebuildsIndexOldestFirstAndDropsTempFiles() throws IOException {
+        Files.write(dir.resolve("old"), new byte[100]);
+        Files.setLastModifiedTime(dir.resolve("old"), FileTime.fromMillis(1_000));
+        Files.write(dir.resolve("new"), new byte[100]);
+        Files.setLastModifiedTime(dir.resolve("new"), FileTime.fromMillis(2_000));
+        Files.write(dir.resolve("half.123.tmp"), new byte[10]);
+
+        VariantCache cache = new VariantCache(dir, 150);
+
+        assertThat(cache.get("old")).isNull();
+        assertThat(cache.get("new")).exists();
+        assertThat(dir.resolve("half.123.tmp")).doesNotExist();
+        assertThat(cache.getTotalBytes()).isEqualTo(100);
+    }
+
+    private static void add(VariantCache cache, String key, int size) throws IOException {
+        Path temp = cache.newTempFile(key);
+        Files.write(temp, new byte[size]);
+        assertThat(cache.add(key, temp)).hasSize(size);
+    }
+}
@@ -0,0 +1,101 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.config.BaselineSchemaUpgrade;
+import com.shopscript.backend.dto.OrderQuery;
+import com.shopscript.backend.entity.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports span several keyset chunks, with ties on created_at falling across
+ * chunk boundaries and legacy orders without a created_at, and must still
+ * return every order once, in order, with all of its lines.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ BaselineSchemaUpgrade.class, OrderExportRepository.class })
+class OrderExportRepositoryTest {
+    private static final int ORDERS = OrderExportRepository.CHUNK_ORDERS * 2 + 7;
+    private static final int UNDATED = 3;
+
+    /** An order inserted for the test: its id, creation time, status and number of lines. */
+    private record Placed(long id, LocalDateTime createdAt, Order.Status status, int lines) {
+    }
+
+    @Autowired
+    private OrderExportRepository orderExportRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Placed> placed = new ArrayList<>();
+
+    @BeforeEach
+    void placeOrders() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, role) VALUES (1, 'buyer', 'x', 'USER')");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        long itemId = 1;
+        for (int i = 0; i < ORDERS; i++) {
+            // Ids run against creation order, and every three orders share a timestamp
+            long id = 10_000 - i;
+            LocalDateTime createdAt = i < UNDATED ? null : start.plusMinutes(i / 3);
+            Order.Status status = i % 2 == 0 ? Order.Status.PENDING : Order.Status.DELIVERED;
+            int lines = i % 3;
+            jdbcTemplate.update("INSERT INTO orders (id, user_id, total_amount, payment_method, shipping_address, "
+                    + "created_at, status) VALUES (?, 1, 10, 'COD', 'Street 1', ?, ?)", id,
+                    createdAt == null ? null : Timestamp.valueOf(createdAt), status.name());
+            for (int line = 0; line < lines; line++) {
+                jdbcTemplate.update("INSERT INTO order_items (id, order_id, quantity, price) VALUES (?, ?, 1, 5)",
+                        itemId++, id);
+            }
+            placed.add(new Placed(id, createdAt, status, lines));
+        }
+    }
+
+    @Test
+    void exportReadsEveryOrderOnceAcrossChunks() {
+        assertExported(new OrderQuery(), placed);
+    }
+
+    @Test
+    void exportAppliesFiltersInEveryChunk() {
+        OrderQuery query = new OrderQuery();
+        query.setStatus(Order.Status.PENDING);
+        assertExported(query, placed.stream().filter(order -> order.status() == Order.Status.PENDING).toList());
+    }
+
+    private void assertExported(OrderQuery query, List<Placed> expected) {
+        List<OrderExportRepository.Row> rows = new ArrayList<>();
+        orderExportRepository.forEachRow(query, rows::add);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (OrderExportRepository.Row row : rows) {
+            if (orderIds.isEmpty() || !orderIds.get(orderIds.size() - 1).equals(row.orderId())) {
+                orderIds.add(row.orderId());
+            }
+        }
+        List<Placed> inOrder = expected.stream()
+                .sorted(Comparator.comparing(Placed::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(Placed::id))
+                .toList();
+        assertThat(orderIds).containsExactlyElementsOf(inOrder.stream().map(Placed::id).toList());
+        assertThat(rows).hasSize(expected.stream().mapToInt(order -> Math.max(order.lines(), 1)).sum());
+    }
+}
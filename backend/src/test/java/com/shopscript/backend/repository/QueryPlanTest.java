@@ -0,0 +1,201 @@
+package com.shopscript.backend.repository;
+
+import com.shopscript.backend.config.BaselineSchemaUpgrade;
+import com.shopscript.backend.dto.OrderQuery;
+import com.shopscript.backend.dto.ProductQuery;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.Product;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each repository finder against the migrated schema on H2 (MySQL mode),
+ * records the SQL Hibernate sends, and checks H2's plan for every statement
+ * reads through an index rather than scanning a table. H2's planner is not
+ * MySQL's, but a missing or unusable index shows up as a table scan in both.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.shopscript.backend.repository.QueryPlanTest$Recorder" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BaselineSchemaUpgrade.class)
+class QueryPlanTest {
+
+    /** Collects every statement Hibernate prepares. */
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
+    @Autowired
+    private SiteSettingRepository siteSettingRepository;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void productListingsUseIndexes() {
+        for (ProductQuery.Sort sort : ProductQuery.Sort.values()) {
+            assertIndexed("products " + sort, () -> products(new ProductQuery(), sort, null));
+        }
+        ProductQuery category = new ProductQuery();
+        category.setCategory("men");
+        assertIndexed("products by category", () -> products(category, ProductQuery.Sort.NEWEST, null));
+        category.setSubcategory("Jeans");
+        assertIndexed("products by subcategory", () -> products(category, ProductQuery.Sort.NEWEST, null));
+        assertIndexed("products after cursor", () -> products(category, ProductQuery.Sort.NEWEST,
+                ProductSpecifications.after(ProductQuery.Sort.NEWEST, null, 100L)));
+        assertIndexed("products by price after cursor", () -> products(new ProductQuery(),
+                ProductQuery.Sort.PRICE_ASC, ProductSpecifications.after(ProductQuery.Sort.PRICE_ASC,
+                        BigDecimal.TEN, 100L)));
+        assertIndexed("product by id", () -> productRepository.findById(1L));
+    }
+
+    @Test
+    void orderPagesUseIndexes() {
+        assertIndexed("orders of user", () -> orderRepository.findByUserId(1L));
+        assertIndexed("order page", () -> orders(null, new OrderQuery()));
+        assertIndexed("order page of user", () -> orders(1L, new OrderQuery()));
+        OrderQuery status = new OrderQuery();
+        status.setStatus(Order.Status.PENDING);
+        assertIndexed("order page by status", () -> orders(null, status));
+        OrderQuery dates = new OrderQuery();
+        dates.setFrom(LocalDate.of(2024, 1, 1));
+        dates.setTo(LocalDate.of(2024, 1, 31));
+        assertIndexed("order page by date", () -> orders(null, dates));
+        assertIndexed("order page after cursor", () -> orderRepository.findSummaries(
+                OrderSpecifications.matching(1L, new OrderQuery())
+                        .and(OrderSpecifications.before(LocalDateTime.of(2024, 1, 1, 0, 0), 100L)), 21));
+        assertIndexed("lines of orders", () -> orderRepository.findItemSummaries(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void reviewListingsUseIndexes() {
+        assertIndexed("approved reviews", () -> reviewRepository.findByProductIdAndIsApprovedTrue(1L));
+        assertIndexed("pending reviews", () -> reviewRepository.findByIsApprovedFalseAndRejectedFalse());
+        assertIndexed("approved page", () -> reviewRepository.findApprovedPage(1L, Long.MAX_VALUE, Limit.of(20)));
+        assertIndexed("pending page", () -> reviewRepository.findPendingPage(0L, Limit.of(20)));
+    }
+
+    @Test
+    void accountAndSettingLookupsUseIndexes() {
+        assertIndexed("user by name", () -> userRepository.findByUsername("bob"));
+        assertIndexed("user by mobile", () -> userRepository.findByMobile("5550100"));
+        assertIndexed("credentials", () -> userRepository.findCredentialsByUsername("bob"));
+        assertIndexed("admin by name", () -> adminRepository.findByUsername("admin"));
+        assertIndexed("setting by key", () -> siteSettingRepository.findBySettingKey("hero"));
+        assertIndexed("sales rollups", () -> salesRollupRepository.findByIdSalesDayBetween(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+    }
+
+    private List<Product> products(ProductQuery query, ProductQuery.Sort sort, Specification<Product> after) {
+        Specification<Product> spec = ProductSpecifications.matching(query);
+        Specification<Product> where = after != null ? spec.and(after) : spec;
+        return productRepository.findBy(where, q -> q.sortBy(ProductSpecifications.sortOf(sort)).limit(21).all());
+    }
+
+    private Object orders(Long userId, OrderQuery query) {
+        return orderRepository.findSummaries(OrderSpecifications.matching(userId, query), 21);
+    }
+
+    private void assertIndexed(String finder, Runnable call) {
+        Recorder.statements.clear();
+        call.run();
+        List<String> selects = Recorder.statements.stream()
+                .filter(sql -> sql.stripLeading().regionMatches(true, 0, "select", 0, 6))
+                .toList();
+        assertThat(selects).as(finder).isNotEmpty();
+        for (String sql : selects) {
+            String plan = explain(sql);
+            assertThat(plan).as(finder + "\n" + plan).doesNotContain("tableScan");
+        }
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                ParameterMetaData parameters = statement.getParameterMetaData();
+                for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                    statement.setObject(i, sampleValue(parameters.getParameterType(i)));
+                }
+                List<String> lines = new ArrayList<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        lines.add(rs.getString(1));
+                    }
+                }
+                return String.join("\n", lines);
+            }
+        });
+    }
+
+    // Any non-null value of the right type will do: the plan depends on which predicates exist, not their values
+    private static Object sampleValue(int sqlType) {
+        switch (sqlType) {
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return Boolean.FALSE;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0));
+            case Types.DATE:
+                return java.sql.Date.valueOf(LocalDate.of(2024, 1, 1));
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.OTHER:
+                return "x";
+            default:
+                return 1;
+        }
+    }
+}
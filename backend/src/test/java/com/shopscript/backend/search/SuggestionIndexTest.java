@@ -0,0 +1,152 @@
+package com.shopscript.backend.search;
+
+import com.shopscript.backend.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Checks the tree-based lookup against a plain scan over every phrase. */
+class SuggestionIndexTest {
+    private static final String[] WORDS = { "red", "read", "leather", "lemon", "jacket", "jeans", "jade", "linen",
+            "shirt", "shoe", "short", "men", "women", "kids" };
+
+    @Test
+    void ranksByPopularityThenAlphabetically() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.rebuild(List.of(product(1, "Leather Jacket", "men", "Jackets"),
+                product(2, "Lemon Shirt", "men", "Shirts"),
+                product(3, "Red Leather Jacket", "women", "Jackets")));
+
+        assertThat(index.suggest("le", 10)).containsExactly("Leather Jacket", "Lemon Shirt", "Red Leather Jacket");
+        assertThat(index.suggest("ja", 10)).containsExactly("Jackets", "Leather Jacket", "Red Leather Jacket");
+        index.recordSearch("red leather jacket");
+        index.recordSearch("red leather jacket");
+        assertThat(index.suggest("ja", 2)).containsExactly("Red Leather Jacket", "Jackets");
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.suggest("zz", 10)).isEmpty();
+    }
+
+    @Test
+    void phraseMatchingThroughTwoWordsIsListedOnce() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.rebuild(List.of(product(1, "Leather Lemon", null, null)));
+
+        assertThat(index.suggest("le", 10)).containsExactly("Leather Lemon");
+    }
+
+    @Test
+    void reindexingFollowsRenamesAndDeletes() {
+        SuggestionIndex index = new SuggestionIndex();
+        Product jacket = product(1, "Leather Jacket", null, null);
+        index.rebuild(List.of(jacket, product(2, "Linen Shirt", null, null)));
+
+        jacket.setPrice(BigDecimal.ONE); // phrases unchanged
+        index.index(jacket);
+        assertThat(index.suggest("l", 10)).containsExactly("Leather Jacket", "Linen Shirt");
+
+        jacket.setName("Lemon Jacket");
+        index.index(jacket);
+        assertThat(index.suggest("l", 10)).containsExactly("Lemon Jacket", "Linen Shirt");
+
+        jacket.setDeleted(true);
+        index.index(jacket);
+        assertThat(index.suggest("l", 10)).containsExactly("Linen Shirt");
+    }
+
+    @Test
+    void matchesFullScanOnRandomCatalogs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<Product> products = new ArrayList<>();
+            int count = 1 + random.nextInt(300);
+            for (int id = 1; id <= count; id++) {
+                products.add(product(id, phrase(random), random.nextInt(3) == 0 ? phrase(random) : null,
+                        random.nextBoolean() ? WORDS[random.nextInt(WORDS.length)] : null));
+            }
+            SuggestionIndex index = new SuggestionIndex();
+            index.rebuild(products);
+            Map<String, Long> searches = new HashMap<>();
+            Map<String, String> phrases = phrases(products);
+            List<String> known = new ArrayList<>(phrases.keySet());
+            for (int i = 0; i < 200; i++) {
+                String searched = known.get(random.nextInt(known.size()));
+                index.recordSearch(searched);
+                searches.merge(searched, 1L, Long::sum);
+            }
+
+            for (String prefix : new String[] { "r", "re", "le", "j", "ja", "s", "sh", "m", "w", "lemon j", "x" }) {
+                int limit = 1 + random.nextInt(12);
+                assertThat(index.suggest(prefix, limit)).as(prefix + " round " + round)
+                        .isEqualTo(fullScan(products, phrases, searches, prefix, limit));
+            }
+        }
+    }
+
+    private static List<String> fullScan(List<Product> products, Map<String, String> phrases,
+            Map<String, Long> searches, String prefix, int limit) {
+        Map<String, Long> popularity = new TreeMap<>();
+        for (Product product : products) {
+            for (String text : new String[] { product.getName(), product.getCategory(), product.getSubcategory() }) {
+                String key = TextAnalyzer.normalize(text);
+                if (!key.isEmpty() && (key.startsWith(prefix) || key.contains(" " + prefix))) {
+                    popularity.merge(key, 0L, Long::sum);
+                }
+            }
+        }
+        for (String key : popularity.keySet()) {
+            popularity.put(key, productsWith(products, key) + searches.getOrDefault(key, 0L));
+        }
+        return popularity.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(limit)
+                .map(e -> phrases.get(e.getKey()))
+                .toList();
+    }
+
+    private static long productsWith(List<Product> products, String key) {
+        return products.stream().filter(p -> TextAnalyzer.normalize(p.getName()).equals(key)
+                || TextAnalyzer.normalize(p.getCategory()).equals(key)
+                || TextAnalyzer.normalize(p.getSubcategory()).equals(key)).count();
+    }
+
+    // First text each normalized phrase was seen as, which is what the index displays
+    private static Map<String, String> phrases(List<Product> products) {
+        Map<String, String> phrases = new HashMap<>();
+        for (Product product : products) {
+            for (String text : new String[] { product.getName(), product.getCategory(), product.getSubcategory() }) {
+                String key = TextAnalyzer.normalize(text);
+                if (!key.isEmpty()) {
+                    phrases.putIfAbsent(key, text.trim());
+                }
+            }
+        }
+        return phrases;
+    }
+
+    private static String phrase(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= random.nextInt(3); i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private static Product product(long id, String name, String category, String subcategory) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setSubcategory(subcategory);
+        return product;
+    }
+}
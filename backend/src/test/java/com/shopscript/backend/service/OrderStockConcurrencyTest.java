@@ -0,0 +1,125 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.OrderRepository;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stock must be conserved under concurrent checkouts and status changes:
+ * at any point, stock left plus the units held by orders that still hold
+ * stock equals what the product started with.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderStockConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int INITIAL_STOCK = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void createProductAndBuyer() {
+        user = new User();
+        user.setUsername("buyer-" + UUID.randomUUID());
+        user.setPassword("x");
+        user.setRole(User.Role.USER);
+        user = userRepository.save(user);
+
+        product = new Product();
+        product.setName("Shirt");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(INITIAL_STOCK);
+        product = productRepository.saveAndFlush(product);
+    }
+
+    @Test
+    void concurrentCancelsReleaseStockOnce() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(3));
+        assertThat(stock()).isEqualTo(INITIAL_STOCK - 3);
+
+        runConcurrently(THREADS * 2, i -> orderService.updateOrderStatus(order.getId(),
+                i % 2 == 0 ? Order.Status.CANCELLED : Order.Status.REJECTED));
+
+        assertThat(stock()).isEqualTo(INITIAL_STOCK);
+    }
+
+    @Test
+    void stockIsConservedWhileStatusFlips() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(3));
+
+        // Cancelling releases, reopening reserves again; racing both must never lose or mint units
+        runConcurrently(THREADS * 4, i -> orderService.updateOrderStatus(order.getId(),
+                i % 2 == 0 ? Order.Status.CANCELLED : Order.Status.PENDING));
+
+        Order.Status status = orderRepository.findById(order.getId()).orElseThrow().getStatus();
+        int held = OrderService.RELEASED_STATUSES.contains(status) ? 0 : 3;
+        assertThat(stock() + held).isEqualTo(INITIAL_STOCK);
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Order cancelled = orderService.createOrder(user.getId(), orderOf(INITIAL_STOCK));
+        runConcurrently(THREADS, i -> orderService.updateOrderStatus(cancelled.getId(), Order.Status.CANCELLED));
+
+        List<Boolean> placed = runConcurrently(THREADS * 3, i -> {
+            try {
+                orderService.createOrder(user.getId(), orderOf(1));
+                return true;
+            } catch (InsufficientStockException e) {
+                return false;
+            }
+        });
+
+        assertThat(placed.stream().filter(Boolean::booleanValue).count()).isEqualTo(INITIAL_STOCK);
+        assertThat(stock()).isZero();
+    }
+
+    private Order orderOf(int quantity) {
+        Order order = new Order();
+        order.setShippingAddress("1 Main St");
+        order.setPaymentMethod("COD");
+        OrderItem item = new OrderItem();
+        Product ref = new Product();
+        ref.setId(product.getId());
+        item.setProduct(ref);
+        item.setQuantity(quantity);
+        order.addItem(item);
+        return order;
+    }
+
+    private int stock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private static <T> List<T> runConcurrently(int tasks, Concurrently.Task<T> task) throws Exception {
+        return Concurrently.run(THREADS, tasks, task);
+    }
+}
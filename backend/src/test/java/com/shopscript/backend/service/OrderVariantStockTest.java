@@ -0,0 +1,143 @@
+package com.shopscript.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.ProductVariant;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.ProductVariantRepository;
+import com.shopscript.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Cancelling an order credits the stock row its lines were debited from, even after the sizes changed. */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderVariantStockTest {
+    private static final int PRODUCT_STOCK = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+    private Product product;
+    private ProductVariant medium;
+
+    @BeforeEach
+    void createProductWithSize() {
+        user = new User();
+        user.setUsername("buyer-" + UUID.randomUUID());
+        user.setPassword("x");
+        user.setRole(User.Role.USER);
+        user = userRepository.save(user);
+
+        product = new Product();
+        product.setName("Shirt");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(PRODUCT_STOCK);
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSize("M");
+        product.getVariants().add(variant);
+        product = productRepository.saveAndFlush(product);
+        medium = product.getVariants().get(0);
+    }
+
+    @Test
+    void sharedStockLineIsCreditedToProductAfterSizeGetsOwnStock() {
+        Order order = orderService.createOrder(user.getId(), orderOf(2));
+        assertThat(productStock()).isEqualTo(PRODUCT_STOCK - 2);
+
+        setMediumStock(10);
+        orderService.updateOrderStatus(order.getId(), Order.Status.CANCELLED);
+
+        assertThat(productStock()).isEqualTo(PRODUCT_STOCK);
+        assertThat(mediumStock()).isEqualTo(10);
+    }
+
+    @Test
+    void ownStockLineIsNotCreditedToProductAfterSizeLosesIt() {
+        setMediumStock(3);
+        Order order = orderService.createOrder(user.getId(), orderOf(2));
+        assertThat(mediumStock()).isEqualTo(1);
+
+        setMediumStock(null);
+        orderService.updateOrderStatus(order.getId(), Order.Status.CANCELLED);
+
+        assertThat(productStock()).isEqualTo(PRODUCT_STOCK);
+        assertThat(mediumStock()).isNull();
+    }
+
+    @Test
+    void reopeningReservesAgainFromTheSizeAsItIsNow() {
+        Order order = orderService.createOrder(user.getId(), orderOf(2));
+        orderService.updateOrderStatus(order.getId(), Order.Status.CANCELLED);
+        setMediumStock(4);
+
+        orderService.updateOrderStatus(order.getId(), Order.Status.PENDING);
+        assertThat(mediumStock()).isEqualTo(2);
+        orderService.updateOrderStatus(order.getId(), Order.Status.CANCELLED);
+
+        assertThat(mediumStock()).isEqualTo(4);
+        assertThat(productStock()).isEqualTo(PRODUCT_STOCK);
+    }
+
+    @Test
+    void updatedOrderStillSerializes() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(1));
+
+        Order cancelled = orderService.updateOrderStatus(order.getId(), Order.Status.CANCELLED);
+
+        assertThat(objectMapper.writeValueAsString(cancelled)).contains("\"selectedSize\":\"M\"");
+    }
+
+    private Order orderOf(int quantity) {
+        Order order = new Order();
+        order.setShippingAddress("1 Main St");
+        order.setPaymentMethod("COD");
+        OrderItem item = new OrderItem();
+        Product ref = new Product();
+        ref.setId(product.getId());
+        item.setProduct(ref);
+        item.setSelectedSize("M");
+        item.setQuantity(quantity);
+        order.addItem(item);
+        return order;
+    }
+
+    private void setMediumStock(Integer stock) {
+        ProductVariant variant = variantRepository.findById(medium.getId()).orElseThrow();
+        variant.setStock(stock);
+        variantRepository.saveAndFlush(variant);
+    }
+
+    private int productStock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private Integer mediumStock() {
+        return variantRepository.findById(medium.getId()).orElseThrow().getStock();
+    }
+}
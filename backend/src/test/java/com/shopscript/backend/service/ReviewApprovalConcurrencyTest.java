@@ -0,0 +1,85 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.RatingSummary;
+import com.shopscript.backend.entity.Review;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.ReviewRepository;
+import com.shopscript.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** A product's rating summary must count each approved review exactly once, however approvals race. */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewApprovalConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Product product;
+    private Review review;
+
+    @BeforeEach
+    void createPendingReview() {
+        User user = new User();
+        user.setUsername("reviewer-" + UUID.randomUUID());
+        user.setPassword("x");
+        user.setRole(User.Role.USER);
+        user = userRepository.save(user);
+
+        product = new Product();
+        product.setName("Shirt");
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(1);
+        product = productRepository.saveAndFlush(product);
+
+        Review pending = new Review();
+        pending.setRating(4);
+        pending.setComment("Fits well");
+        review = reviewService.addReview(product.getId(), user.getId(), pending);
+    }
+
+    @Test
+    void concurrentApprovalsCountTheReviewOnce() throws Exception {
+        Concurrently.run(THREADS, THREADS * 2, i -> reviewService.approveReview(review.getId(), true));
+
+        RatingSummary rating = rating();
+        assertThat(rating.getCount()).isEqualTo(1);
+        assertThat(rating.getSum()).isEqualTo(4);
+        assertThat(rating.getFours()).isEqualTo(1);
+    }
+
+    @Test
+    void racingApproveAndRejectLeaveSummaryMatchingReview() throws Exception {
+        Concurrently.run(THREADS, THREADS * 4, i -> reviewService.approveReview(review.getId(), i % 2 == 0));
+
+        boolean approved = reviewRepository.findById(review.getId()).orElseThrow().isApproved();
+        RatingSummary rating = rating();
+        assertThat(rating.getCount()).isEqualTo(approved ? 1 : 0);
+        assertThat(rating.getSum()).isEqualTo(approved ? 4 : 0);
+    }
+
+    private RatingSummary rating() {
+        return productRepository.findById(product.getId()).orElseThrow().getRating();
+    }
+}
@@ -0,0 +1,120 @@
+package com.shopscript.backend.service;
+
+import com.shopscript.backend.dto.SalesRollupCheck;
+import com.shopscript.backend.entity.Order;
+import com.shopscript.backend.entity.OrderItem;
+import com.shopscript.backend.entity.Product;
+import com.shopscript.backend.entity.User;
+import com.shopscript.backend.repository.ProductRepository;
+import com.shopscript.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orders placed and moved between statuses through the service leave the
+ * incrementally maintained rollups equal to a rebuild from the orders table,
+ * including for a category longer than 100 characters.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SalesRollupConsistencyTest {
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Product shirt;
+    private Product lamp;
+
+    @BeforeEach
+    void createCatalog() {
+        salesRollupService.rebuild(); // start from rollups that match whatever other tests left behind
+
+        user = new User();
+        user.setUsername("rollup-" + UUID.randomUUID());
+        user.setPassword("x");
+        user.setRole(User.Role.USER);
+        user = userRepository.save(user);
+
+        shirt = product("men", 50);
+        lamp = product("home-" + "x".repeat(150), 50);
+    }
+
+    @Test
+    void incrementalRollupsMatchRebuild() throws Exception {
+        Order first = orderService.createOrder(user.getId(), orderOf(shirt, 2, lamp, 1));
+        Order second = orderService.createOrder(user.getId(), orderOf(lamp, 3, null, 0));
+        Order third = orderService.createOrder(user.getId(), orderOf(shirt, 1, null, 0));
+
+        orderService.updateOrderStatus(first.getId(), Order.Status.APPROVED);
+        orderService.updateOrderStatus(first.getId(), Order.Status.DELIVERED);
+        orderService.updateOrderStatus(second.getId(), Order.Status.CANCELLED);
+        orderService.updateOrderStatus(second.getId(), Order.Status.PENDING);
+        orderService.updateOrderStatus(third.getId(), Order.Status.REJECTED);
+
+        awaitConsumed();
+        SalesRollupCheck check = salesRollupService.verify();
+        assertThat(check.getMismatches()).isEmpty();
+        assertThat(check.isConsistent()).isTrue();
+        assertThat(check.getRowsChecked()).isPositive();
+    }
+
+    private Product product(String category, int stock) {
+        Product product = new Product();
+        product.setName("Item");
+        product.setCategory(category);
+        product.setPrice(BigDecimal.TEN);
+        product.setStock(stock);
+        return productRepository.saveAndFlush(product);
+    }
+
+    private static Order orderOf(Product product, int quantity, Product other, int otherQuantity) {
+        Order order = new Order();
+        order.setShippingAddress("1 Main St");
+        order.setPaymentMethod("COD");
+        order.addItem(line(product, quantity));
+        if (other != null) {
+            order.addItem(line(other, otherQuantity));
+        }
+        return order;
+    }
+
+    private static OrderItem line(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        Product ref = new Product();
+        ref.setId(product.getId());
+        item.setProduct(ref);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    // The consumer has caught up once none of its events are left in the outbox
+    private void awaitConsumed() throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_events WHERE consumer = ?", Integer.class,
+                salesRollupService.getName()) > 0) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.shopscript.backend.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Blobs are named by content, so the same bytes are stored once; uploads
+ * over the size cap or with a bad extension are refused without leaving
+ * anything behind.
+ */
+class FilesystemBlobStoreTest {
+    private static final long MAX_BYTES = 1024;
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FilesystemBlobStore store;
+    private List<Path> imported;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new FilesystemBlobStore(meterRegistry, dir.resolve("blobs").toString(),
+                dir.resolve("legacy").toString(), MAX_BYTES, 2, 100);
+        store.init();
+        imported = files(); // legacy uploads found on the classpath
+    }
+
+    @Test
+    void sameBytesAreStoredOnceUnderOneName() throws IOException {
+        String first = store.put(new ByteArrayInputStream(new byte[] { 1, 2, 3 }), "PNG");
+        String second = store.put(new ByteArrayInputStream(new byte[] { 1, 2, 3 }), "png");
+        String other = store.put(new ByteArrayInputStream(new byte[] { 4, 5, 6 }), "png");
+
+        assertThat(first).isEqualTo(second).endsWith(".png").isNotEqualTo(other);
+        assertThat(store.isContentAddressed(first)).isTrue();
+        assertThat(store.find(first)).hasValueSatisfying(file -> assertThat(file).hasBinaryContent(
+                new byte[] { 1, 2, 3 }));
+        assertThat(stored()).hasSize(2);
+        assertThat(meterRegistry.counter("uploads.stored").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("uploads.deduplicated").count()).isEqualTo(1);
+    }
+
+    @Test
+    void uploadOverTheCapIsRefusedAndLeavesNoFile() throws IOException {
+        byte[] atCap = new byte[(int) MAX_BYTES];
+        byte[] overCap = new byte[(int) MAX_BYTES + 1];
+
+        assertThat(store.put(new ByteArrayInputStream(atCap), "png")).isNotNull();
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream(overCap), "png"))
+                .isInstanceOf(BlobTooLargeException.class);
+        assertThat(stored()).hasSize(1);
+    }
+
+    @Test
+    void invalidExtensionIsRefused() throws IOException {
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream(new byte[] { 1 }), "../png"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> store.put(new ByteArrayInputStream(new byte[] { 1 }), "averyverylongext"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(stored()).isEmpty();
+    }
+
+    @Test
+    void namesOutsideTheStoreAreNotFound() throws IOException {
+        Files.writeString(dir.resolve("secret.txt"), "x");
+
+        assertThat(store.find("../secret.txt")).isEmpty();
+        assertThat(store.find("missing.png")).isEmpty();
+        assertThat(store.isContentAddressed("legacy-name.png")).isFalse();
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("blobs"))) {
+            return files.toList();
+        }
+    }
+
+    private List<Path> stored() throws IOException {
+        return files().stream().filter(file -> !imported.contains(file)).toList();
+    }
+}
@@ -1,7 +1,7 @@
 'use client';
 
 import { useState, useEffect } from 'react';
-import { Product, Order, Review, User } from '@/types';
+import { Product, Order, OrderPage, Review, ReviewPage, User } from '@/types';
 import { api } from '@/lib/api';
 import { useAuth } from '@/context/AuthContext';
 import { useCart } from '@/context/CartContext';
@@ -25,6 +25,7 @@ export default function AdminDashboard() {
     // Data State
     const [products, setProducts] = useState<Product[]>([]);
     const [orders, setOrders] = useState<Order[]>([]);
+    const [ordersCursor, setOrdersCursor] = useState<string | null>(null);
     const [reviews, setReviews] = useState<Review[]>([]);
     const [usersList, setUsersList] = useState<User[]>([]);
     const [siteSettings, setSiteSettings] = useState({
@@ -49,6 +50,7 @@ export default function AdminDashboard() {
     });
     const [imageInputType, setImageInputType] = useState<'url' | 'upload'>('url');
     const [editingProductId, setEditingProductId] = useState<number | null>(null);
+    const [editingVersion, setEditingVersion] = useState<number | null>(null);
     const [selectedUser, setSelectedUser] = useState<User | null>(null);
 
     // Notification State
@@ -103,11 +105,12 @@ export default function AdminDashboard() {
                 const data = (await api.get('/products')) as unknown as Product[];
                 setProducts(data);
             } else if (activeTab === 'orders') {
-                const data = (await api.get('/orders')) as unknown as Order[];
-                setOrders(data.sort((a, b) => b.id - a.id));
+                const page = (await api.get('/orders/page?limit=50')) as unknown as OrderPage;
+                setOrders(page.items);
+                setOrdersCursor(page.nextCursor);
             } else if (activeTab === 'reviews') {
-                const data = (await api.get('/reviews/pending')) as unknown as Review[];
-                setReviews(data);
+                const page = (await api.get('/reviews/pending/page?limit=50')) as unknown as ReviewPage;
+                setReviews(page.items);
             } else if (activeTab === 'site_settings') {
                 const data = (await api.get('/settings').catch(() => ({}))) as Record<string, string>;
                 setSiteSettings({
@@ -216,7 +219,9 @@ export default function AdminDashboard() {
             };
 
             if (editingProductId) {
-                await api.put(`/products/${editingProductId}`, productData);
+                // Refused with 412 if someone else saved the product after we loaded it
+                const headers = editingVersion !== null ? { 'If-Match': `"${editingProductId}-${editingVersion}"` } : undefined;
+                await api.put(`/products/${editingProductId}`, productData, { headers });
                 showNotification('Product updated successfully', 'success');
             } else {
                 await api.post('/products', productData);
@@ -225,8 +230,13 @@ export default function AdminDashboard() {
 
             setNewProduct(prev => ({ ...prev, name: '', description: '', price: '', imageUrl: '', stock: '', subcategory: '', sizes: '', details: '', sizePrices: '' }));
             setEditingProductId(null);
+            setEditingVersion(null);
             loadData();
-        } catch (error) {
+        } catch (error: any) {
+            if (error?.response?.status === 412) {
+                showNotification('This product was changed by someone else. Reload it before saving.', 'error');
+                return;
+            }
             showNotification('Failed to save product', 'error');
         }
     };
@@ -245,12 +255,14 @@ export default function AdminDashboard() {
             sizePrices: product.sizePrices || ''
         });
         setEditingProductId(product.id);
+        setEditingVersion(product.version ?? null);
         window.scrollTo({ top: 0, behavior: 'smooth' });
     };
 
     const handleCancelEdit = () => {
         setNewProduct(prev => ({ ...prev, name: '', description: '', price: '', imageUrl: '', stock: '', subcategory: '', sizes: '', details: '', sizePrices: '' }));
         setEditingProductId(null);
+        setEditingVersion(null);
     };
 
     const handleDeleteClick = (id: number) => {
@@ -272,6 +284,32 @@ export default function AdminDashboard() {
         }
     };
 
+    const loadMoreOrders = async () => {
+        if (!ordersCursor) return;
+        try {
+            const page = (await api.get(`/orders/page?limit=50&cursor=${encodeURIComponent(ordersCursor)}`)) as unknown as OrderPage;
+            setOrders(prev => [...prev, ...page.items]);
+            setOrdersCursor(page.nextCursor);
+        } catch (error) {
+            showNotification('Failed to load more orders', 'error');
+        }
+    };
+
+    // The server streams every order as CSV; the loaded list may only be the first page
+    const exportAllOrders = async () => {
+        try {
+            const blob = (await api.get('/orders/export?format=csv', { responseType: 'blob' })) as unknown as Blob;
+            const url = URL.createObjectURL(blob);
+            const link = document.createElement('a');
+            link.href = url;
+            link.download = `orders_${new Date().toISOString().slice(0, 10)}.csv`;
+            link.click();
+            URL.revokeObjectURL(url);
+        } catch (error) {
+            showNotification('Failed to export orders', 'error');
+        }
+    };
+
     const handleOrderStatus = async (id: number, status: string) => {
         try {
             await api.put(`/orders/${id}/status?status=${status}`, {});
@@ -292,6 +330,17 @@ export default function AdminDashboard() {
         }
     };
 
+    const handleBulkReviewModeration = async (approved: boolean) => {
+        if (reviews.length === 0) return;
+        try {
+            const result = (await api.put('/reviews/approval', { ids: reviews.map(r => r.id), approved })) as unknown as { updated: number };
+            loadData();
+            showNotification(`${result.updated} reviews ${approved ? 'approved' : 'rejected'}`, 'success');
+        } catch (error) {
+            showNotification('Failed to update reviews', 'error');
+        }
+    };
+
     if (authLoading) return <div className="text-center py-20">Loading...</div>;
     if (!user || user.role !== 'ADMIN') return null;
 
@@ -667,8 +716,8 @@ export default function AdminDashboard() {
                     <div className="bg-card shadow-sm rounded-xl border border-border overflow-hidden">
                         <div className="p-6 border-b border-border flex justify-between items-center">
                             <h2 className="text-lg font-medium text-foreground">Orders</h2>
-                            <button onClick={() => handleExport('orders')} className="bg-green-600 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-green-700">
-                                Export to Excel
+                            <button onClick={exportAllOrders} className="bg-green-600 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-green-700">
+                                Export to CSV
                             </button>
                         </div>
                         <ul className="divide-y divide-border">
@@ -705,13 +754,26 @@ export default function AdminDashboard() {
                                 </li>
                             ))}
                         </ul>
+                        {ordersCursor && (
+                            <div className="p-6 border-t border-border flex justify-center">
+                                <button onClick={loadMoreOrders} className="px-4 py-2 rounded-lg text-sm font-medium border border-border text-foreground hover:bg-secondary">
+                                    Load more
+                                </button>
+                            </div>
+                        )}
                     </div>
                 )}
 
                 {activeTab === 'reviews' && (
                     <div className="bg-card shadow-sm rounded-xl border border-border overflow-hidden">
-                        <div className="p-6 border-b border-border">
+                        <div className="p-6 border-b border-border flex justify-between items-center">
                             <h2 className="text-lg font-medium text-foreground">Pending Reviews</h2>
+                            {reviews.length > 0 && (
+                                <div className="flex space-x-2">
+                                    <button onClick={() => handleBulkReviewModeration(true)} className="bg-green-600 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-green-700">Approve all shown</button>
+                                    <button onClick={() => handleBulkReviewModeration(false)} className="bg-red-600 text-white px-4 py-2 rounded-lg text-sm font-medium hover:bg-red-700">Reject all shown</button>
+                                </div>
+                            )}
                         </div>
                         <ul className="divide-y divide-border">
                             {reviews.map((r) => (
@@ -719,6 +781,7 @@ export default function AdminDashboard() {
                                     <div className="flex items-center justify-between">
                                         <div>
                                             <p className="text-sm font-medium">Rating: {r.rating}/5</p>
+                                            {r.productName && <p className="text-xs text-muted-foreground">{r.productName} · by {r.username}</p>}
                                             <p className="text-sm text-muted-foreground">{r.comment}</p>
                                         </div>
                                         <div className="flex space-x-2">
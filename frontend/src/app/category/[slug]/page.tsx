@@ -2,31 +2,45 @@
 
 import { useState, useEffect } from 'react';
 import { useParams } from 'next/navigation';
-import { Product } from '@/types';
+import { Product, ProductPage } from '@/types';
 import ProductCard from '@/components/ProductCard';
 import { api } from '@/lib/api';
 import { CATEGORY_SUBCATEGORIES } from '@/constants/categories';
 
+const PAGE_SIZE = 24;
+
 export default function CategoryPage() {
     const params = useParams();
     const slug = params?.slug as string;
-    const [allProducts, setAllProducts] = useState<Product[]>([]);
-    const [filteredProducts, setFilteredProducts] = useState<Product[]>([]);
+    const [products, setProducts] = useState<Product[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [activeSubcategory, setActiveSubcategory] = useState<string>('All');
 
+    const fetchPage = async (cursor: string | null) => {
+        const query = new URLSearchParams({ category: slug, limit: String(PAGE_SIZE) });
+        if (activeSubcategory !== 'All') {
+            query.set('subcategory', activeSubcategory);
+        }
+        if (cursor) {
+            query.set('cursor', cursor);
+        }
+        return (await api.get(`/products/catalog?${query.toString()}`)) as unknown as ProductPage;
+    };
+
+    useEffect(() => {
+        setActiveSubcategory('All'); // Reset subcategory when category changes
+    }, [slug]);
+
     useEffect(() => {
         if (slug) {
             setLoading(true);
-            setActiveSubcategory('All'); // Reset subcategory when category changes
             const fetchProducts = async () => {
                 try {
-                    const productsData = (await api.get('/products')) as unknown as Product[];
-                    const categoryProducts = productsData.filter(p =>
-                        p.category && p.category.toLowerCase() === slug.toLowerCase()
-                    );
-                    setAllProducts(categoryProducts);
-                    setFilteredProducts(categoryProducts);
+                    const page = await fetchPage(null);
+                    setProducts(page.items);
+                    setNextCursor(page.nextCursor);
                 } catch (error) {
                     console.error("Failed to fetch products", error);
                 } finally {
@@ -35,15 +49,21 @@ export default function CategoryPage() {
             };
             fetchProducts();
         }
-    }, [slug]);
+    }, [slug, activeSubcategory]);
 
-    useEffect(() => {
-        if (activeSubcategory === 'All') {
-            setFilteredProducts(allProducts);
-        } else {
-            setFilteredProducts(allProducts.filter(p => p.subcategory === activeSubcategory));
+    const loadMore = async () => {
+        if (!nextCursor) return;
+        setLoadingMore(true);
+        try {
+            const page = await fetchPage(nextCursor);
+            setProducts(prev => [...prev, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error("Failed to fetch products", error);
+        } finally {
+            setLoadingMore(false);
         }
-    }, [activeSubcategory, allProducts]);
+    };
 
     const categoryName = slug ? slug.charAt(0).toUpperCase() + slug.slice(1) : 'Category';
     const subcategories = slug ? CATEGORY_SUBCATEGORIES[slug] || [] : [];
@@ -91,8 +111,8 @@ export default function CategoryPage() {
                     </div>
                 ) : (
                     <div className="grid grid-cols-1 gap-y-10 sm:grid-cols-2 gap-x-6 lg:grid-cols-4 xl:gap-x-8">
-                        {filteredProducts.length > 0 ? (
-                            filteredProducts.map((product) => (
+                        {products.length > 0 ? (
+                            products.map((product) => (
                                 <ProductCard key={product.id} product={product} />
                             ))
                         ) : (
@@ -102,6 +122,18 @@ export default function CategoryPage() {
                         )}
                     </div>
                 )}
+
+                {!loading && nextCursor && (
+                    <div className="flex justify-center mt-10">
+                        <button
+                            onClick={loadMore}
+                            disabled={loadingMore}
+                            className="px-6 py-2 rounded-full text-sm font-medium bg-secondary text-foreground hover:bg-muted transition-colors disabled:opacity-50"
+                        >
+                            {loadingMore ? 'Loading...' : 'Load more'}
+                        </button>
+                    </div>
+                )}
             </div>
         </div>
     );
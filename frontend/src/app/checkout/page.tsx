@@ -126,8 +126,12 @@ export default function CheckoutPage() {
             await api.post(`/orders/user/${userId}`, orderData);
             clearCart();
             setStep(3);
-        } catch (error) {
+        } catch (error: any) {
             console.error('Order failed', error);
+            if (error?.response?.status === 409) {
+                showNotification('Some items in your cart are out of stock. Please update your cart.', 'error');
+                return;
+            }
             showNotification('Failed to place order. Please try again.', 'error');
         }
     };
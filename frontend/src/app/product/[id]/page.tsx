@@ -2,8 +2,9 @@
 
 import { useEffect, useState } from 'react';
 import { useParams, useRouter } from 'next/navigation';
-import { Product, Review } from '@/types';
+import { Product, Review, ReviewPage } from '@/types';
 import { api } from '@/lib/api';
+import { uploadSrcSet } from '@/lib/images';
 import { useCart } from '@/context/CartContext';
 
 import Notification from '@/components/Notification';
@@ -14,6 +15,7 @@ export default function ProductDetails() {
 
     const [product, setProduct] = useState<Product | null>(null);
     const [reviews, setReviews] = useState<Review[]>([]);
+    const [reviewsCursor, setReviewsCursor] = useState<string | null>(null);
     const [loading, setLoading] = useState(true);
 
     // Review Form
@@ -54,10 +56,12 @@ export default function ProductDetails() {
         }
     };
 
-    const loadReviews = async () => {
+    const loadReviews = async (cursor?: string) => {
         try {
-            const data = (await api.get(`/reviews/product/${id}`)) as unknown as Review[];
-            setReviews(data);
+            const query = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+            const page = (await api.get(`/reviews/product/${id}/page${query}`)) as unknown as ReviewPage;
+            setReviews(prev => (cursor ? [...prev, ...page.items] : page.items));
+            setReviewsCursor(page.nextCursor);
         } catch (error) {
             console.error('Failed to load reviews');
         }
@@ -80,7 +84,10 @@ export default function ProductDetails() {
 
     const getPriceForSize = () => {
         if (!product) return 0;
-        if (!selectedSize || !product.sizePrices) return product.price;
+        if (!selectedSize) return product.price;
+        const variant = product.variants?.find(v => v.size === selectedSize);
+        if (variant) return variant.price ?? product.price;
+        if (!product.sizePrices) return product.price;
         try {
             const prices = JSON.parse(product.sizePrices);
             return prices[selectedSize] || product.price;
@@ -135,6 +142,8 @@ export default function ProductDetails() {
                     <div className="aspect-w-1 aspect-h-1 rounded-lg overflow-hidden">
                         <img
                             src={product.imageUrl || 'https://via.placeholder.com/600'}
+                            srcSet={uploadSrcSet(product.imageUrl, 1280)}
+                            sizes="(min-width: 1024px) 512px, 100vw"
                             alt={product.name}
                             className="w-full h-full object-center object-cover"
                         />
@@ -152,6 +161,11 @@ export default function ProductDetails() {
                         </button>
                     </div>
                     <h1 className="text-3xl font-extrabold tracking-tight text-foreground">{product.name}</h1>
+                    {product.rating && product.rating.count > 0 && (
+                        <p className="mt-1 text-sm text-muted-foreground">
+                            <span className="text-yellow-500">★</span> {product.rating.average.toFixed(1)} out of 5 ({product.rating.count} {product.rating.count === 1 ? 'review' : 'reviews'})
+                        </p>
+                    )}
 
                     <div className="mt-3">
                         <h2 className="sr-only">Product information</h2>
@@ -272,6 +286,11 @@ export default function ProductDetails() {
                             ))}
                             {reviews.length === 0 && <p className="text-muted-foreground">No reviews yet.</p>}
                         </div>
+                        {reviewsCursor && (
+                            <button onClick={() => loadReviews(reviewsCursor)} className="mt-6 px-4 py-2 rounded-lg text-sm font-medium border border-border text-foreground hover:bg-secondary">
+                                Show more reviews
+                            </button>
+                        )}
                     </div>
                 </div>
             </div>
@@ -2,6 +2,7 @@ import { Product } from '@/types';
 import Link from 'next/link';
 import { useRouter } from 'next/navigation';
 import { useAuth } from '@/context/AuthContext';
+import { uploadSrcSet } from '@/lib/images';
 
 interface ProductCardProps {
     product: Product;
@@ -25,6 +26,8 @@ export default function ProductCard({ product }: ProductCardProps) {
             <div className="aspect-w-3 aspect-h-4 bg-muted group-hover:opacity-75 sm:aspect-none sm:h-96">
                 <img
                     src={product.imageUrl || 'https://via.placeholder.com/300'}
+                    srcSet={uploadSrcSet(product.imageUrl, 960)}
+                    sizes="(min-width: 1024px) 25vw, (min-width: 640px) 50vw, 100vw"
                     alt={product.name}
                     className="w-full h-full object-center object-cover sm:w-full sm:h-full cursor-pointer"
                     onClick={handleProductClick}
@@ -38,6 +41,11 @@ export default function ProductCard({ product }: ProductCardProps) {
                     </a>
                 </h3>
                 <p className="text-sm text-muted-foreground line-clamp-2">{product.description}</p>
+                {product.rating && product.rating.count > 0 && (
+                    <p className="text-xs text-muted-foreground">
+                        <span className="text-yellow-500">★</span> {product.rating.average.toFixed(1)} ({product.rating.count})
+                    </p>
+                )}
                 <div className="flex-1 flex items-end justify-between">
                     <p className="text-base font-medium text-foreground">₹{product.price}</p>
                     <p className="text-sm text-muted-foreground">{product.stock > 0 ? 'In Stock' : 'Out of Stock'}</p>
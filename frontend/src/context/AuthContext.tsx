@@ -50,6 +50,8 @@ export function AuthProvider({ children }: { children: ReactNode }) {
     };
 
     const logout = () => {
+        // Revoke the token server-side; local state is cleared either way
+        api.post('/users/logout').catch(() => {});
         localStorage.removeItem('user');
         localStorage.removeItem('token');
         setUser(null);
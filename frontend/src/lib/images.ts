@@ -0,0 +1,14 @@
+// Widths the backend resizes uploaded images to (app.images.widths)
+const VARIANT_WIDTHS = [160, 320, 640, 960, 1280];
+
+function isUpload(url: string) {
+    return url.includes('/uploads/') && !url.includes('?');
+}
+
+// srcSet offering resized copies of an uploaded image up to maxWidth; external URLs get none
+export function uploadSrcSet(url: string | undefined, maxWidth: number): string | undefined {
+    if (!url || !isUpload(url)) {
+        return undefined;
+    }
+    return VARIANT_WIDTHS.filter(w => w <= maxWidth).map(w => `${url}?w=${w} ${w}w`).join(', ');
+}
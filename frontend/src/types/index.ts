@@ -10,6 +10,28 @@ export interface Product {
     sizes?: string;
     details?: string;
     sizePrices?: string;
+    variants?: ProductVariant[];
+    rating?: RatingSummary;
+    version?: number;
+    lastModified?: string;
+}
+
+export interface ProductVariant {
+    id: number;
+    size: string;
+    price: number | null; // null: the product's price
+    stock: number | null; // null: shares the product's stock
+}
+
+export interface RatingSummary {
+    count: number;
+    average: number;
+    histogram: number[]; // counts for 1..5 stars
+}
+
+export interface ProductPage {
+    items: Product[];
+    nextCursor: string | null;
 }
 
 export interface OrderItem {
@@ -32,11 +54,23 @@ export interface Order {
     user: User;
 }
 
+export interface OrderPage {
+    items: Order[];
+    nextCursor: string | null;
+}
+
 export interface Review {
     id: number;
     rating: number;
     comment: string;
     isApproved: boolean;
+    productName?: string;
+    username?: string;
+}
+
+export interface ReviewPage {
+    items: Review[];
+    nextCursor: string | null;
 }
 
 export interface User {